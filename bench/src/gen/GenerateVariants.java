@@ -0,0 +1,103 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+// Turns snippet files into a compilable source tree for the benchmarks. Each
+// top-level class or interface of the given files is written to its own file
+// in the given package. A name used by several variants gets a 1-based suffix
+// in file order (the three compact/standard/lazy-int SegmentTrees become
+// SegmentTree1, SegmentTree2, SegmentTree3, ...), and references to such a
+// name from any other class go to variant 1. Run from the bench build:
+//
+//   java GenerateVariants.java <out dir> <package> <snippet files...>
+public class GenerateVariants {
+    static final Pattern DECL = Pattern.compile("^(?:public\\s+)?(?:(?:abstract|final)\\s+)*(?:class|interface)\\s+(\\w+)");
+    static final Pattern WORD = Pattern.compile("\\b[A-Za-z_]\\w*\\b");
+    static final Pattern IMPORT = Pattern.compile("(?m)^import\\s+[\\w.*]+;\\s*$");
+
+    record Type(String source, String imports, String name, String body) {}
+
+    public static void main(String[] args) throws IOException {
+        Path out = Paths.get(args[0]);
+        String pkg = args[1];
+        List<Type> types = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            Path file = Paths.get(args[i]);
+            String src = Files.readString(file).replace("\r\n", "\n");
+            StringBuilder imports = new StringBuilder();
+            Matcher m = IMPORT.matcher(src);
+            while (m.find()) imports.append(m.group().trim()).append('\n');
+            for (String[] t : split(src)) {
+                types.add(new Type(file.getFileName().toString(), imports.toString(), t[0], t[1]));
+            }
+        }
+
+        Map<String, Integer> count = new HashMap<>();
+        for (Type t : types) count.merge(t.name, 1, Integer::sum);
+        Map<String, Integer> seen = new HashMap<>();
+        Path dir = out.resolve(pkg.replace('.', '/'));
+        Files.createDirectories(dir);
+        for (Type t : types) {
+            int k = count.get(t.name);
+            int ordinal = seen.merge(t.name, 1, Integer::sum);
+            String name = k == 1 ? t.name : t.name + ordinal;
+            Matcher m = WORD.matcher(t.body);
+            StringBuilder body = new StringBuilder();
+            while (m.find()) {
+                String w = m.group();
+                String r = w;
+                if (w.equals(t.name)) r = name;
+                else if (count.getOrDefault(w, 0) > 1) r = w + 1;
+                m.appendReplacement(body, r);
+            }
+            m.appendTail(body);
+            String header = "package " + pkg + ";\n\n"
+                    + "// Generated from " + t.source
+                    + (k == 1 ? "" : " (variant " + ordinal + " of " + k + " named " + t.name + ")")
+                    + ". Do not edit.\n\n"
+                    + (t.imports.isEmpty() ? "" : t.imports + "\n");
+            Files.writeString(dir.resolve(name + ".java"), header + body + "\n");
+        }
+    }
+
+    // Returns {name, source} for each top-level type, skipping comments,
+    // strings and char literals while matching braces.
+    static List<String[]> split(String src) {
+        List<String[]> types = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        String name = null;
+        int i = 0;
+        while (i < src.length()) {
+            char c = src.charAt(i);
+            if (depth == 0 && start == -1 && (i == 0 || src.charAt(i-1) == '\n')) {
+                int eol = src.indexOf('\n', i);
+                Matcher m = DECL.matcher(src.substring(i, eol == -1 ? src.length() : eol));
+                if (m.find()) {
+                    start = i;
+                    name = m.group(1);
+                }
+            }
+            if (src.startsWith("//", i)) {
+                int eol = src.indexOf('\n', i);
+                i = eol == -1 ? src.length() : eol;
+            } else if (src.startsWith("/*", i)) {
+                i = src.indexOf("*/", i + 2) + 2;
+            } else if (c == '"' || c == '\'') {
+                for (i++; src.charAt(i) != c; i++) {
+                    if (src.charAt(i) == '\\') i++;
+                }
+                i++;
+            } else {
+                if (c == '{') depth++;
+                if (c == '}' && --depth == 0 && start != -1) {
+                    types.add(new String[]{name, src.substring(start, i + 1)});
+                    start = -1;
+                }
+                i++;
+            }
+        }
+        return types;
+    }
+}
@@ -0,0 +1,71 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Point-to-point query latency on a generated road-like graph (RoadGraph).
+// SampleTime mode reports percentiles, so read p0.99 off the output.
+//   alt       Graphs.ALT.query with 0 (plain bidirectional Dijkstra), 8 or
+//             16 landmarks; landmark tables are built once in setup
+//   dijkstra  the full single-source Graphs.dijkstra that ALT replaces
+// Query pairs are uniform random vertices, replayed from a fixed stream.
+// highways=false gives a plain grid, where landmark bounds are tight.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ALTBench {
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"500"})
+        int side;
+
+        @Param({"true", "false"})
+        boolean highways;
+
+        Graphs graphs = new Graphs();
+        CSRGraph g;
+        int[] pairs;
+        int cursor;
+
+        @Setup
+        public void setup() {
+            g = RoadGraph.build(side, highways, 21);
+            Random rnd = new Random(21);
+            pairs = new int[2 * Patterns.LENGTH];
+            for (int i = 0; i < pairs.length; i++) pairs[i] = rnd.nextInt(g.n);
+        }
+
+        int next() {
+            int v = pairs[cursor];
+            cursor = (cursor + 1) & (pairs.length - 1);
+            return v;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Engine {
+        @Param({"0", "8", "16"})
+        int landmarks;
+
+        Graphs.ALT alt;
+
+        @Setup
+        public void setup(Input in) {
+            alt = in.graphs.new ALT(in.g, landmarks);
+        }
+    }
+
+    @Benchmark
+    public long alt(Input in, Engine e) {
+        return e.alt.query(in.next(), in.next());
+    }
+
+    @Benchmark
+    public void dijkstra(Input in) {
+        in.graphs.dijkstra(in.g, in.next());
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Point adds and prefix queries on the int (BIT1), long (BIT2) and modular
+// (BIT3) Fenwick trees.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class BITBench {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"uniform", "skewed", "sequential"})
+    String pattern;
+
+    BIT1 intBit;
+    BIT2 longBit;
+    BIT3 modBit;
+    Patterns p;
+
+    @Setup
+    public void setup() {
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        for (int i = 0; i < size; i++) ints[i] = (int) (longs[i] = i % 1000);
+        intBit = new BIT1(ints);
+        longBit = new BIT2(longs);
+        modBit = new BIT3(longs);
+        p = new Patterns(pattern, size, 2);
+    }
+
+    @Benchmark
+    public int intQuery() {
+        return intBit.query(p.next());
+    }
+
+    @Benchmark
+    public void intAdd() {
+        intBit.add(p.next(), 1);
+    }
+
+    @Benchmark
+    public long longQuery() {
+        return longBit.query(p.next());
+    }
+
+    @Benchmark
+    public void longAdd() {
+        longBit.add(p.next(), 1);
+    }
+
+    @Benchmark
+    public long modQuery() {
+        return modBit.query(p.next());
+    }
+
+    @Benchmark
+    public void modAdd() {
+        modBit.add(p.next(), 1);
+    }
+}
@@ -0,0 +1,80 @@
+package bench;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.openjdk.jmh.annotations.*;
+
+// Scaling of concurrent adds: ConcurrentBIT.add against a long BIT (BIT2)
+// guarded by one lock, which is what writers sharing a plain BIT must do.
+// JMH fixes the thread count per benchmark class, so each count is a
+// subclass: ConcurrentBITBench.T1 ... T8, and TMax for one thread per core.
+// Compare ops/s across the subclasses, e.g.
+//
+//   java -jar benchmarks.jar ConcurrentBITBench -p pattern=skewed
+//
+// The skewed pattern concentrates adds on a few hot buckets (and their
+// shared ancestors), the worst case for contention.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class ConcurrentBITBench {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"1000", "1000000"})
+        int size;
+
+        @Param({"uniform", "skewed"})
+        String pattern;
+
+        ConcurrentBIT concurrent;
+        BIT2 locked;
+        AtomicInteger seeds = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            concurrent = new ConcurrentBIT(size);
+            locked = new BIT2(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Local {
+        Patterns p;
+
+        @Setup
+        public void setup(Shared shared) {
+            p = new Patterns(shared.pattern, shared.size, shared.seeds.incrementAndGet());
+        }
+    }
+
+    @Benchmark
+    public void concurrentAdd(Shared s, Local l) {
+        s.concurrent.add(l.p.next(), 1);
+    }
+
+    @Benchmark
+    public void lockedAdd(Shared s, Local l) {
+        int i = l.p.next();
+        synchronized (s.locked) {
+            s.locked.add(i, 1);
+        }
+    }
+
+    @Threads(1)
+    public static class T1 extends ConcurrentBITBench {}
+
+    @Threads(2)
+    public static class T2 extends ConcurrentBITBench {}
+
+    @Threads(4)
+    public static class T4 extends ConcurrentBITBench {}
+
+    @Threads(8)
+    public static class T8 extends ConcurrentBITBench {}
+
+    @Threads(Threads.MAX)
+    public static class TMax extends ConcurrentBITBench {}
+}
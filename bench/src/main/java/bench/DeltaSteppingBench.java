@@ -0,0 +1,66 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Single-source shortest paths on a generated road-like graph (RoadGraph):
+// Graphs.DeltaStepping at each ForkJoinPool parallelism against the
+// sequential Graphs.dijkstra baseline. Speedup at p threads is
+// dijkstra time / deltaStepping time at parallelism = p.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DeltaSteppingBench {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"1000"})
+        int side;
+
+        Graphs graphs = new Graphs();
+        CSRGraph g;
+        int source;
+
+        @Setup
+        public void setup() {
+            g = RoadGraph.build(side, true, 20);
+            source = g.n / 2;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({"1", "2", "4", "8"})
+        int parallelism;
+
+        @Param({"100"})
+        long delta;
+
+        ForkJoinPool pool;
+        Graphs.DeltaStepping ds;
+
+        @Setup
+        public void setup(Input in) {
+            pool = new ForkJoinPool(parallelism);
+            ds = in.graphs.new DeltaStepping(in.g, delta, pool);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long[] deltaStepping(Input in, Engine e) {
+        e.ds.run(in.source);
+        return e.ds.dist;
+    }
+
+    @Benchmark
+    public void dijkstra(Input in) {
+        in.graphs.dijkstra(in.g, in.source);
+    }
+}
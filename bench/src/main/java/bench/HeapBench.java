@@ -0,0 +1,89 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Each heap holds size entries, and one operation extracts the minimum and
+// adds the same value back with key = extracted key + 1 + next index. Keys
+// therefore never go below the last extracted one, so RadixHeap can take
+// part, and the pattern shapes how far ahead new keys land.
+//   Heap1         indexed d-ary heap, primitive keys
+//   Heap2         generic handle-based binary heap, boxed keys
+//   PairingHeap   generic handle-based pairing heap, boxed keys
+//   RadixHeap     monotone radix heap
+//   MeldableHeap  pooled pairing heap with primitive nodes
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class HeapBench {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"uniform", "skewed", "sequential"})
+    String pattern;
+
+    Heap1 indexed;
+    Heap2<Integer, Long> binary;
+    PairingHeap<Integer, Long> pairing;
+    RadixHeap radix;
+    MeldableHeap meldable;
+    int meldableRoot;
+    Patterns p;
+
+    @Setup
+    public void setup() {
+        p = new Patterns(pattern, size, 3);
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) keys[i] = p.next();
+        indexed = Heap1.from(keys);
+        binary = new Heap2<>();
+        pairing = new PairingHeap<>();
+        radix = new RadixHeap();
+        meldable = new MeldableHeap(size);
+        meldableRoot = meldable.create(0, keys[0]);
+        for (int i = 0; i < size; i++) {
+            binary.add(i, keys[i]);
+            pairing.add(i, keys[i]);
+            radix.add(i, keys[i]);
+            if (i > 0) meldableRoot = meldable.add(meldableRoot, i, keys[i]);
+        }
+    }
+
+    @Benchmark
+    public void indexed() {
+        long key = indexed.peekKey();
+        int value = indexed.extractMin();
+        indexed.add(value, key + 1 + p.next());
+    }
+
+    @Benchmark
+    public void binary() {
+        long key = binary.getKey(binary.peekHandle());
+        int value = binary.extractMin();
+        binary.add(value, key + 1 + p.next());
+    }
+
+    @Benchmark
+    public void pairing() {
+        long key = pairing.getKey(pairing.peekHandle());
+        int value = pairing.extractMin();
+        pairing.add(value, key + 1 + p.next());
+    }
+
+    @Benchmark
+    public void radix() {
+        int value = radix.extractMin();
+        radix.add(value, radix.last + 1 + p.next());
+    }
+
+    @Benchmark
+    public void meldable() {
+        int value = meldable.minValue(meldableRoot);
+        long key = meldable.minKey(meldableRoot);
+        meldableRoot = meldable.extractMin(meldableRoot);
+        meldableRoot = meldable.add(meldableRoot, value, key + 1 + p.next());
+    }
+}
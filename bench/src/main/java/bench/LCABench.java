@@ -0,0 +1,51 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// LCA queries on a random recursive tree (the parent of vertex i is uniform
+// in [0, i), so the depth is O(log n)) with both endpoints drawn from the
+// pattern. LCA1 is the Euler tour + segment tree version, LCA2 binary lifting.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class LCABench {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"uniform", "skewed", "sequential"})
+    String pattern;
+
+    LCA1 eulerTour;
+    LCA2 binaryLifting;
+    Patterns p;
+
+    @Setup
+    public void setup() {
+        List<List<Integer>> adj = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) adj.add(new ArrayList<>());
+        Random rnd = new Random(4);
+        for (int i = 1; i < size; i++) {
+            int parent = rnd.nextInt(i);
+            adj.get(parent).add(i);
+            adj.get(i).add(parent);
+        }
+        eulerTour = new LCA1(adj, 0);
+        binaryLifting = new LCA2(adj, 0);
+        p = new Patterns(pattern, size, 4);
+    }
+
+    @Benchmark
+    public int eulerTour() {
+        return eulerTour.lca(p.next(), p.next());
+    }
+
+    @Benchmark
+    public int binaryLifting() {
+        return binaryLifting.lca(p.next(), p.next());
+    }
+}
@@ -0,0 +1,38 @@
+package bench;
+
+import java.util.*;
+
+// Index streams for the pattern parameter of the benchmarks. Each stream has
+// LENGTH entries in [0, n) and is replayed in a loop by next(), so picking an
+// index costs an array read and no benchmark allocates to get one.
+//   uniform     every index equally likely
+//   skewed      n * u^4 for uniform u: about 56% of accesses hit the lowest
+//               10% of indices, like a hot set of popular keys
+//   sequential  an ascending sweep over [0, n), with a stride of
+//               n / LENGTH when n > LENGTH
+class Patterns {
+    static final String[] NAMES = {"uniform", "skewed", "sequential"};
+    static final int LENGTH = 1 << 16;
+
+    int[] idx;
+    int cursor;
+
+    Patterns(String pattern, int n, long seed) {
+        idx = new int[LENGTH];
+        Random rnd = new Random(seed);
+        for (int i = 0; i < LENGTH; i++) {
+            switch (pattern) {
+                case "uniform": idx[i] = rnd.nextInt(n); break;
+                case "skewed": idx[i] = (int) Math.min(n - 1, n * Math.pow(rnd.nextDouble(), 4)); break;
+                case "sequential": idx[i] = (int) (n > LENGTH ? (long) i * n / LENGTH : i % n); break;
+                default: throw new IllegalArgumentException(pattern);
+            }
+        }
+    }
+
+    int next() {
+        int i = idx[cursor];
+        cursor = (cursor + 1) & (LENGTH - 1);
+        return i;
+    }
+}
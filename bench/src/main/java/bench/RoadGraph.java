@@ -0,0 +1,42 @@
+package bench;
+
+import java.util.*;
+
+// Generated road-like test graph: a side x side grid with edges both ways
+// between neighbours (weights 1..100), plus, if highways is set,
+// side * side / 100 random "highway" edges both ways with weights up to
+// 10000. These are long enough to exercise DeltaStepping's overflow list for
+// small deltas, and as shortcuts they weaken ALT's landmark bounds.
+class RoadGraph {
+    static CSRGraph build(int side, boolean highways, long seed) {
+        Random rnd = new Random(seed);
+        int n = side * side;
+        int extra = highways ? n / 100 : 0;
+        int m = 4 * side * (side - 1) + 2 * extra;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        int[] w = new int[m];
+        int e = 0;
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int u = r * side + c;
+                if (c + 1 < side) e = edge(from, to, w, e, u, u + 1, 1 + rnd.nextInt(100));
+                if (r + 1 < side) e = edge(from, to, w, e, u, u + side, 1 + rnd.nextInt(100));
+            }
+        }
+        for (int i = 0; i < extra; i++) {
+            e = edge(from, to, w, e, rnd.nextInt(n), rnd.nextInt(n), 1 + rnd.nextInt(10000));
+        }
+        return new CSRGraph(n, from, to, w);
+    }
+
+    private static int edge(int[] from, int[] to, int[] w, int e, int u, int v, int weight) {
+        from[e] = u;
+        to[e] = v;
+        w[e++] = weight;
+        from[e] = v;
+        to[e] = u;
+        w[e++] = weight;
+        return e;
+    }
+}
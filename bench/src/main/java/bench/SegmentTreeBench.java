@@ -0,0 +1,75 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Point updates and range queries on the int segment trees: compact
+// (SegmentTree1), standard recursive (SegmentTree2) and lazy (SegmentTree3,
+// whose update is a range add). Query ranges run between two indices drawn
+// from the pattern.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class SegmentTreeBench {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"uniform", "skewed", "sequential"})
+    String pattern;
+
+    SegmentTree1 compact;
+    SegmentTree2 standard;
+    SegmentTree3 lazy;
+    Patterns p;
+
+    @Setup
+    public void setup() {
+        int[] arr = new int[size];
+        for (int i = 0; i < size; i++) arr[i] = i % 1000;
+        compact = new SegmentTree1(arr);
+        standard = new SegmentTree2(arr);
+        lazy = new SegmentTree3(arr, SegmentTree3.SUM_ADD);
+        p = new Patterns(pattern, size, 1);
+    }
+
+    @Benchmark
+    public int compactQuery() {
+        int l = p.next();
+        int r = p.next();
+        return compact.query(Math.min(l, r), Math.max(l, r) + 1);
+    }
+
+    @Benchmark
+    public void compactModify() {
+        compact.modify(p.next(), 1);
+    }
+
+    @Benchmark
+    public int standardQuery() {
+        int l = p.next();
+        int r = p.next();
+        return standard.query(Math.min(l, r), Math.max(l, r));
+    }
+
+    @Benchmark
+    public void standardModify() {
+        standard.modify(p.next(), 1);
+    }
+
+    @Benchmark
+    public int lazyQuery() {
+        int l = p.next();
+        int r = p.next();
+        return lazy.query(Math.min(l, r), Math.max(l, r));
+    }
+
+    @Benchmark
+    public void lazyRangeAdd() {
+        int l = p.next();
+        int r = p.next();
+        lazy.modify(Math.min(l, r), Math.max(l, r), 1);
+    }
+}
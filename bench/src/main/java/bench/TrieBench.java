@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// TrieNode lookups and inserts of size distinct words. Word i is i written in
+// base 26 with letters, padded to a common length. Lookup words are built up
+// front so the benchmark itself doesn't allocate strings; add re-inserts
+// existing words, so it also allocates nothing once the trie is built.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class TrieBench {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"uniform", "skewed", "sequential"})
+    String pattern;
+
+    TrieNode root;
+    String[] words;
+    int cursor;
+
+    @Setup
+    public void setup() {
+        int len = 1;
+        for (long cap = 26; cap < size; cap *= 26) len++;
+        root = new TrieNode();
+        for (int i = 0; i < size; i++) TrieNode.add(root, word(i, len));
+        Patterns p = new Patterns(pattern, size, 6);
+        words = new String[Patterns.LENGTH];
+        for (int i = 0; i < words.length; i++) words[i] = word(p.next(), len);
+    }
+
+    static String word(int i, int len) {
+        char[] c = new char[len];
+        for (int j = len - 1; j >= 0; j--, i /= 26) c[j] = (char) ('a' + i % 26);
+        return new String(c);
+    }
+
+    String next() {
+        String w = words[cursor];
+        cursor = (cursor + 1) & (Patterns.LENGTH - 1);
+        return w;
+    }
+
+    @Benchmark
+    public TrieNode contains() {
+        return TrieNode.contains(root, next());
+    }
+
+    @Benchmark
+    public void add() {
+        TrieNode.add(root, next());
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// union and find on pattern-drawn elements. The sets keep merging during a
+// run, so later iterations mostly measure find on compressed paths.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class UnionFindBench {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"uniform", "skewed", "sequential"})
+    String pattern;
+
+    UnionFind uf;
+    Patterns p;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        uf = new UnionFind(size);
+        p = new Patterns(pattern, size, 5);
+    }
+
+    @Benchmark
+    public void union() {
+        uf.union(p.next(), p.next());
+    }
+
+    @Benchmark
+    public int find() {
+        return uf.find(p.next());
+    }
+}
@@ -0,0 +1,112 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Range queries on the 16-ary wide trees against the binary ones, at 10^6
+// to 10^8 elements:
+//   sums  WideSegmentTree.query against the compact SegmentTree1.query
+//   min   WideMinSegmentTree.query against the lazy SegmentTree4.query with
+//         MIN_ADD (the compact tree only has a sum combine)
+// Each structure is its own state, so a benchmark only builds the tree it
+// queries. 10^8 elements needs a large heap (the lazy tree alone is 3 GB);
+// the forks use -Xmx16g.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class WideSegmentTreeBench {
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"1000000", "10000000", "100000000"})
+        int size;
+
+        @Param({"uniform", "skewed", "sequential"})
+        String pattern;
+
+        Patterns p;
+
+        @Setup
+        public void setup() {
+            p = new Patterns(pattern, size, 9);
+        }
+
+        long[] longs() {
+            long[] arr = new long[size];
+            for (int i = 0; i < size; i++) arr[i] = (i * 7919L) % 1000;
+            return arr;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Wide {
+        WideSegmentTree t;
+
+        @Setup
+        public void setup(Input in) {
+            t = new WideSegmentTree(in.longs());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WideMin {
+        WideMinSegmentTree t;
+
+        @Setup
+        public void setup(Input in) {
+            t = new WideMinSegmentTree(in.longs());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Compact {
+        SegmentTree1 t;
+
+        @Setup
+        public void setup(Input in) {
+            int[] arr = new int[in.size];
+            for (int i = 0; i < in.size; i++) arr[i] = (int) ((i * 7919L) % 1000);
+            t = new SegmentTree1(arr);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LazyMin {
+        SegmentTree4 t;
+
+        @Setup
+        public void setup(Input in) {
+            t = new SegmentTree4(in.longs(), SegmentTree4.MIN_ADD);
+        }
+    }
+
+    @Benchmark
+    public long wideSum(Input in, Wide w) {
+        int l = in.p.next();
+        int r = in.p.next();
+        return w.t.query(Math.min(l, r), Math.max(l, r) + 1);
+    }
+
+    @Benchmark
+    public int compactSum(Input in, Compact c) {
+        int l = in.p.next();
+        int r = in.p.next();
+        return c.t.query(Math.min(l, r), Math.max(l, r) + 1);
+    }
+
+    @Benchmark
+    public long wideMin(Input in, WideMin w) {
+        int l = in.p.next();
+        int r = in.p.next();
+        return w.t.query(Math.min(l, r), Math.max(l, r) + 1);
+    }
+
+    @Benchmark
+    public long lazyMin(Input in, LazyMin t) {
+        int l = in.p.next();
+        int r = in.p.next();
+        return t.t.query(Math.min(l, r), Math.max(l, r));
+    }
+}
@@ -1,16 +1,23 @@
+import java.lang.invoke.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 // TODO: euler circuit. test on 1634E
 // https://cp-algorithms.com/graph/euler_path.html
 // https://github.com/ShahjalalShohag/code-library/blob/master/Graph%20Theory/Euler%20Path%20Directed.cpp
 // https://github.com/ShahjalalShohag/code-library/blob/master/Graph%20Theory/Euler%20Path%20Undirected.cpp
 
-// Various graph algorithms
+// Various graph algorithms. Graphs other than grids are passed as a CSRGraph;
+// for an undirected graph, add each edge in both directions.
 public class Graphs {
 
     // directions for matrix graphs
     int[][] dirs = new int[][]{{1,0}, {-1,0}, {0,1}, {0,-1}};
 
+    // directions including diagonals
+    int[][] dirs8 = new int[][]{{1,0}, {-1,0}, {0,1}, {0,-1}, {1,1}, {1,-1}, {-1,1}, {-1,-1}};
+
     // DFS skeleton for matrix graphs where edges join adjacent cells. This
     // function assumes the given entry has already been marked visited.
     void dfs(int[][] A, boolean[][] visited, int i, int j) {
@@ -42,8 +49,166 @@ public class Graphs {
         }
     }
 
-    // Heap must support long keys.
-    void dijkstra(int n, int s, List<List<int[]>> adj) {
+    // Grid traversals with no per-cell allocation, safe on large grids. Cells
+    // are flattened to r*cols + c, and all arrays are allocated once in the
+    // constructor and reused: each call returns (and overwrites) dist.
+    // Moves are given by dirs, e.g. dirs, dirs8 or a knight's moves.
+    class GridSearch {
+        int rows;
+        int cols;
+        int[] dr;
+        int[] dc;
+        int[] dist;
+        int[] queue;  // 0-1 BFS pushes each cell at most twice
+
+        GridSearch(int rows, int cols) {
+            this(rows, cols, dirs);
+        }
+
+        GridSearch(int rows, int cols, int[][] dirs) {
+            this.rows = rows;
+            this.cols = cols;
+            dr = new int[dirs.length];
+            dc = new int[dirs.length];
+            for (int d = 0; d < dirs.length; d++) {
+                dr[d] = dirs[d][0];
+                dc[d] = dirs[d][1];
+            }
+            dist = new int[rows*cols];
+            queue = new int[2*rows*cols];
+        }
+
+        // BFS through open cells. dist[v] is the number of moves from source,
+        // or -1.
+        int[] bfs(boolean[] open, int source) {
+            Arrays.fill(dist, -1);
+            dist[source] = 0;
+            queue[0] = source;
+            return search(open, 1);
+        }
+
+        // BFS from sources[0..count) at once. dist[v] is the number of moves
+        // from the nearest source, or -1.
+        int[] bfs(boolean[] open, int[] sources, int count) {
+            Arrays.fill(dist, -1);
+            int tail = 0;
+            for (int i = 0; i < count; i++) {
+                if (dist[sources[i]] == -1) {
+                    dist[sources[i]] = 0;
+                    queue[tail++] = sources[i];
+                }
+            }
+            return search(open, tail);
+        }
+
+        // Runs the BFS from the tail sources already in queue.
+        private int[] search(boolean[] open, int tail) {
+            int head = 0;
+            while (head < tail) {
+                int u = queue[head++];
+                int r = u / cols;
+                int c = u - r*cols;
+                for (int d = 0; d < dr.length; d++) {
+                    int nr = r+dr[d];
+                    int nc = c+dc[d];
+                    if (nr < 0 || nc < 0 || nr >= rows || nc >= cols) continue;
+                    int v = nr*cols + nc;
+                    if (open[v] && dist[v] == -1) {
+                        dist[v] = dist[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            return dist;
+        }
+
+        // 0-1 BFS, where entering cell v costs cost[v], which is 0 or 1 (or
+        // -1 for a blocked cell). Cells reached at no extra cost go to the
+        // front of the deque. dist[v] is the cheapest cost from source, or -1.
+        int[] bfs01(int[] cost, int source) {
+            Arrays.fill(dist, -1);
+            dist[source] = 0;
+            queue[0] = source;
+            return search01(cost, 1);
+        }
+
+        // 0-1 BFS from sources[0..count) at once. dist[v] is the cheapest
+        // cost from the nearest source, or -1.
+        int[] bfs01(int[] cost, int[] sources, int count) {
+            Arrays.fill(dist, -1);
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                if (dist[sources[i]] == -1) {
+                    dist[sources[i]] = 0;
+                    queue[size++] = sources[i];
+                }
+            }
+            return search01(cost, size);
+        }
+
+        // Runs the 0-1 BFS from the size sources already in queue.
+        private int[] search01(int[] cost, int size) {
+            int cap = queue.length;
+            int head = 0;
+            while (size > 0) {
+                int u = queue[head];
+                head = head+1 == cap ? 0 : head+1;
+                size--;
+                int r = u / cols;
+                int c = u - r*cols;
+                for (int d = 0; d < dr.length; d++) {
+                    int nr = r+dr[d];
+                    int nc = c+dc[d];
+                    if (nr < 0 || nc < 0 || nr >= rows || nc >= cols) continue;
+                    int v = nr*cols + nc;
+                    if (cost[v] < 0) continue;
+                    int nd = dist[u] + cost[v];
+                    if (dist[v] != -1 && dist[v] <= nd) continue;
+                    dist[v] = nd;
+                    if (cost[v] == 0) {
+                        head = head == 0 ? cap-1 : head-1;
+                        queue[head] = v;
+                    } else {
+                        int tail = head+size < cap ? head+size : head+size-cap;
+                        queue[tail] = v;
+                    }
+                    size++;
+                }
+            }
+            return dist;
+        }
+
+        // Flood fill (iterative DFS) from start through open cells, marking
+        // them in visited. start is marked too. Returns the number of cells
+        // newly marked.
+        int fill(boolean[] open, boolean[] visited, int start) {
+            int top = 0;
+            int count = 0;
+            visited[start] = true;
+            queue[top++] = start;
+            while (top > 0) {
+                int u = queue[--top];
+                count++;
+                int r = u / cols;
+                int c = u - r*cols;
+                for (int d = 0; d < dr.length; d++) {
+                    int nr = r+dr[d];
+                    int nc = c+dc[d];
+                    if (nr < 0 || nc < 0 || nr >= rows || nc >= cols) continue;
+                    int v = nr*cols + nc;
+                    if (open[v] && !visited[v]) {
+                        visited[v] = true;
+                        queue[top++] = v;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    // Dijkstra with the indexed Heap, for non-negative weights.
+    void dijkstra(CSRGraph g, int s) {
+        int n = g.n;
         long[] dist = new long[n];
         Arrays.fill(dist, Long.MAX_VALUE);
         dist[s] = 0;
@@ -51,16 +216,15 @@ public class Graphs {
         int[] parent = new int[n];  // optional
         Arrays.fill(parent, -1);
 
-        Heap heap = new Heap(n);
-        for (int i = 0; i < n; i++) heap.add(i, dist[i]);
+        Heap heap = Heap.from(dist);
 
         while (!heap.isEmpty()) {
             int u = heap.extractMin();
             done[u] = true;
             if (dist[u] == Long.MAX_VALUE) continue;
-            for (int[] vw : adj.get(u)) {
-                int v = vw[0];
-                int w = vw[1];
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                int v = g.target[e];
+                int w = g.weight[e];
                 if (dist[u] + w < dist[v]) {
                     dist[v] = dist[u] + w;
                     parent[v] = u;
@@ -70,53 +234,148 @@ public class Graphs {
         }
     }
 
-    void bellmanFord(int n, int s, List<int[]> edges) {
+    // Same as above but with a RadixHeap, for non-negative integer weights.
+    // There is no decrease-key, so a vertex is added again whenever its
+    // distance improves and stale entries are skipped when extracted.
+    void dijkstraRadix(CSRGraph g, int s) {
+        int n = g.n;
         long[] dist = new long[n];
         Arrays.fill(dist, Long.MAX_VALUE);
         dist[s] = 0;
         int[] parent = new int[n];  // optional
         Arrays.fill(parent, -1);
 
-        for (int i = 0; i < n-1; i++) {
-            for (int[] edge : edges) {
-                int u = edge[0];
-                int v = edge[1];
-                int w = edge[2];
-                if (dist[u] != Long.MAX_VALUE && dist[u] + w < dist[v]) {
+        RadixHeap heap = new RadixHeap();
+        heap.add(s, 0);
+
+        while (!heap.isEmpty()) {
+            int u = heap.extractMin();
+            if (heap.last != dist[u]) continue;
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                int v = g.target[e];
+                int w = g.weight[e];
+                if (dist[u] + w < dist[v]) {
                     dist[v] = dist[u] + w;
                     parent[v] = u;
+                    heap.add(v, dist[v]);
+                }
+            }
+        }
+    }
+
+    // Bellman-Ford. The caller fills dist with Long.MAX_VALUE except 0 at the
+    // source(s); setting every dist to 0 instead searches the whole graph for
+    // negative cycles. Passes stop as soon as one changes nothing.
+    //
+    // Returns null and leaves shortest distances in dist and the tree in
+    // parent, or returns a negative cycle reachable from the sources as its
+    // vertices in edge order.
+    int[] bellmanFord(CSRGraph g, long[] dist, int[] parent) {
+        int n = g.n;
+        Arrays.fill(parent, -1);
+        for (int i = 0; i < n; i++) {
+            boolean changed = false;
+            for (int u = 0; u < n; u++) {
+                if (dist[u] == Long.MAX_VALUE) continue;
+                for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                    int v = g.target[e];
+                    if (dist[u] + g.weight[e] < dist[v]) {
+                        dist[v] = dist[u] + g.weight[e];
+                        parent[v] = u;
+                        changed = true;
+                    }
                 }
+            }
+            if (!changed) return null;
+        }
+        // Something still changed on the nth pass, so some parent chain is
+        // n edges long and contains a cycle, which must be negative.
+        return parentCycle(parent);
+    }
 
-                // Uncomment if graph is undirected
-                // if (dist[v] != Long.MAX_VALUE && dist[v] + w < dist[u]) {
-                //     dist[u] = dist[v] + w;
-                //     parent[u] = v;
-                // }
+    // Same contract as bellmanFord, but only vertices whose distance changed
+    // are rescanned, kept in a deque (SPFA). A vertex is pushed to the front
+    // if it is closer than the current front (SLF), which usually means
+    // fewer rescans. This is typically much faster than bellmanFord, but
+    // still O(nm) in the worst case.
+    //
+    // Any cycle in the parent graph is negative, and one appears eventually
+    // if a negative cycle is reachable, so the parent graph is checked once
+    // every n relaxations, which is O(1) amortized per relaxation.
+    int[] spfa(CSRGraph g, long[] dist, int[] parent) {
+        int n = g.n;
+        Arrays.fill(parent, -1);
+        int[] deque = new int[n+1];
+        int head = 0;
+        int tail = 0;
+        boolean[] inQueue = new boolean[n];
+        for (int u = 0; u < n; u++) {
+            if (dist[u] != Long.MAX_VALUE) {
+                deque[tail++] = u;
+                inQueue[u] = true;
+            }
+        }
+        int relaxations = 0;
+        while (head != tail) {
+            int u = deque[head];
+            head = head == n ? 0 : head+1;
+            inQueue[u] = false;
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                int v = g.target[e];
+                if (dist[u] + g.weight[e] >= dist[v]) continue;
+                dist[v] = dist[u] + g.weight[e];
+                parent[v] = u;
+                if (++relaxations == n) {
+                    relaxations = 0;
+                    int[] cycle = parentCycle(parent);
+                    if (cycle != null) return cycle;
+                }
+                if (inQueue[v]) continue;
+                inQueue[v] = true;
+                if (head != tail && dist[v] < dist[deque[head]]) {
+                    head = head == 0 ? n : head-1;
+                    deque[head] = v;
+                } else {
+                    deque[tail] = v;
+                    tail = tail == n ? 0 : tail+1;
+                }
             }
         }
+        return null;
+    }
 
-        // Detect negative cycles if needed
-        for (int[] edge : edges) {
-            int u = edge[0];
-            int v = edge[1];
-            int w = edge[2];
-            if (dist[u] != Long.MAX_VALUE && dist[u] + w < dist[v]) {
-                // Negative cycle exists
+    // Returns a cycle in the graph of parent pointers, in edge order, or null
+    // if there is none. O(n).
+    private int[] parentCycle(int[] parent) {
+        int n = parent.length;
+        int[] walk = new int[n];  // which start vertex's walk visited a vertex
+        Arrays.fill(walk, -1);
+        for (int s = 0; s < n; s++) {
+            int v = s;
+            while (v != -1 && walk[v] == -1) {
+                walk[v] = s;
+                v = parent[v];
             }
-            // Uncomment if graph is undirected
-            // if (dist[v] != Long.MAX_VALUE && dist[v] + w < dist[u]) {
-            //     // Negative cycle exists
-            // }
+            if (v == -1 || walk[v] != s) continue;
+            int len = 1;
+            for (int u = parent[v]; u != v; u = parent[u]) len++;
+            int[] cycle = new int[len];
+            for (int i = len-1, u = v; i >= 0; i--, u = parent[u]) cycle[i] = u;
+            return cycle;
         }
+        return null;
     }
 
-    void floydWarshall(int n, List<int[]> edges) {
+    void floydWarshall(CSRGraph g) {
+        int n = g.n;
         long[][] dist = new long[n][n];
         for (long[] row : dist) Arrays.fill(row, Long.MAX_VALUE);
         for (int i = 0; i < n; i++) dist[i][i] = 0;
-        for (int[] edge : edges) dist[edge[0]][edge[1]] = edge[2];
-        // Swap line above with line below if undirected
-        // for (int[] edge : edges) dist[edge[0]][edge[1]] = dist[edge[1]][edge[0]] = edge[2];
+        for (int u = 0; u < n; u++) {
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                dist[u][g.target[e]] = Math.min(dist[u][g.target[e]], g.weight[e]);
+            }
+        }
 
         for (int k = 0; k < n; k++) {
             for (int i = 0; i < n; i++) {
@@ -129,12 +388,146 @@ public class Graphs {
         }
     }
 
+    // Receives one row of all-pairs distances: row[v] is the distance from s
+    // to v, or Long.MAX_VALUE. Rows arrive from several threads at once, and
+    // row is reused once accept returns, so copy anything that must be kept.
+    interface RowConsumer {
+        void accept(int s, long[] row);
+    }
+
+    // Johnson's algorithm: all-pairs shortest paths in O(nm log n) for sparse
+    // graphs with negative edges. Potentials h from one spfa run (from every
+    // vertex at 0, as if from a virtual source) make every edge weight
+    // w + h[u] - h[v] non-negative, and then a Dijkstra from each source runs
+    // on the pool. Each worker keeps its own heap and row array, so memory is
+    // O(m + n * workers) rather than O(n^2). Throws if there is a negative
+    // cycle.
+    void johnson(CSRGraph g, ForkJoinPool pool, RowConsumer out) {
+        int n = g.n;
+        long[] h = new long[n];
+        if (spfa(g, h, new int[n]) != null) throw new RuntimeException();
+        long[] weight = new long[g.m];
+        for (int u = 0; u < n; u++) {
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                weight[e] = g.weight[e] + h[u] - h[g.target[e]];
+            }
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[pool.getParallelism()];
+        for (int t = 0; t < tasks.length; t++) {
+            tasks[t] = ForkJoinTask.adapt(() -> {
+                Heap heap = new Heap(n);
+                long[] dist = new long[n];
+                for (int s = next.getAndIncrement(); s < n; s = next.getAndIncrement()) {
+                    Arrays.fill(dist, Long.MAX_VALUE);
+                    dist[s] = 0;
+                    heap.add(s, 0);
+                    while (!heap.isEmpty()) {
+                        int u = heap.extractMin();
+                        for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                            int v = g.target[e];
+                            long nd = dist[u] + weight[e];
+                            if (nd < dist[v]) {
+                                if (dist[v] == Long.MAX_VALUE) heap.add(v, nd);
+                                else heap.decreaseKey(v, nd);
+                                dist[v] = nd;
+                            }
+                        }
+                    }
+                    for (int v = 0; v < n; v++) {
+                        if (dist[v] != Long.MAX_VALUE) dist[v] += h[v] - h[s];
+                    }
+                    out.accept(s, dist);
+                }
+            });
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    static final int FW_BLOCK = 64;
+    static final long FW_INF = Long.MAX_VALUE / 4;
+
+    // Floyd-Warshall on a flat n*n matrix, split into B x B blocks so the
+    // three blocks being combined stay in cache. For each diagonal block K:
+    // first K itself is closed, then every block in row K and column K (these
+    // only need K), then all remaining blocks (these only need row K and
+    // column K). The blocks within the second and third phases are
+    // independent, so they run in parallel on the pool.
+    //
+    // Unreachable pairs hold INF = Long.MAX_VALUE / 4 while running, so
+    // INF + INF can't overflow and the inner loop needs no branches. On
+    // return, d[i*n + j] is the distance from i to j, or Long.MAX_VALUE.
+    // Negative edges are fine but negative cycles are not detected.
+    long[] floydWarshallBlocked(CSRGraph g, ForkJoinPool pool) {
+        int n = g.n;
+        long[] d = new long[n*n];
+        Arrays.fill(d, FW_INF);
+        for (int i = 0; i < n; i++) d[i*n+i] = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                d[u*n+g.target[e]] = Math.min(d[u*n+g.target[e]], g.weight[e]);
+            }
+        }
+
+        int nb = (n + FW_BLOCK - 1) / FW_BLOCK;
+        for (int kb = 0; kb < nb; kb++) {
+            int k = kb;
+            fwBlock(d, n, k, k, k);
+            ForkJoinTask<?>[] phase2 = new ForkJoinTask<?>[2*(nb-1)];
+            int t = 0;
+            for (int b = 0; b < nb; b++) {
+                if (b == k) continue;
+                int other = b;
+                phase2[t++] = ForkJoinTask.adapt(() -> fwBlock(d, n, k, other, k));
+                phase2[t++] = ForkJoinTask.adapt(() -> fwBlock(d, n, other, k, k));
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(phase2)));
+            ForkJoinTask<?>[] phase3 = new ForkJoinTask<?>[nb-1];
+            t = 0;
+            for (int ib = 0; ib < nb; ib++) {
+                if (ib == k) continue;
+                int row = ib;
+                phase3[t++] = ForkJoinTask.adapt(() -> {
+                    for (int jb = 0; jb < nb; jb++) {
+                        if (jb != k) fwBlock(d, n, row, jb, k);
+                    }
+                });
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(phase3)));
+        }
+
+        for (int i = 0; i < n*n; i++) {
+            if (d[i] >= FW_INF / 2) d[i] = Long.MAX_VALUE;
+        }
+        return d;
+    }
+
+    // Relaxes block (ib, jb) through the vertices of block kb.
+    private void fwBlock(long[] d, int n, int ib, int jb, int kb) {
+        int i0 = ib*FW_BLOCK, i1 = Math.min(n, i0+FW_BLOCK);
+        int j0 = jb*FW_BLOCK, j1 = Math.min(n, j0+FW_BLOCK);
+        int k0 = kb*FW_BLOCK, k1 = Math.min(n, k0+FW_BLOCK);
+        for (int k = k0; k < k1; k++) {
+            int kRow = k*n;
+            for (int i = i0; i < i1; i++) {
+                int iRow = i*n;
+                long dik = d[iRow+k];
+                for (int j = j0; j < j1; j++) {
+                    d[iRow+j] = Math.min(d[iRow+j], dik + d[kRow+j]);
+                }
+            }
+        }
+    }
+
     // Code snippet for iterative dfs. Probably needed if n ~ 10^6 or larger.
     // We keep track of which phase of the dfs each node is on using color.
     // color[u] = -1 means not started
     // color[i] means we need to process the ith node in adjacency list
-    void iterativeDfs(int n, List<List<Integer>> adj) {
-        List<Integer> stack = new ArrayList<>();
+    void iterativeDfs(CSRGraph g) {
+        int n = g.n;
+        int[] stack = new int[n];
+        int top = 0;
         boolean[] visited = new boolean[n];
         int[] color = new int[n];
         Arrays.fill(color, -1);
@@ -149,22 +542,23 @@ public class Graphs {
             if (visited[s]) continue;
 
             visited[s] = true;
-            stack.add(s);
-            while (!stack.isEmpty()) {
-                int u = stack.get(stack.size() - 1);
-                if (color[u] == 0) {
+            stack[top++] = s;
+            while (top > 0) {
+                int u = stack[top-1];
+                if (color[u] == -1) {
                     // do work prior to visiting neighbors
-                } else if (color[u] < adj.get(u).size()) {
-                    int v = adj.get(u).get(color[u]);
+                    color[u] = 0;
+                } else if (color[u] < g.degree(u)) {
+                    int v = g.target[g.offset[u] + color[u]];
                     if (!visited[v]) {
                         visited[v] = true;
-                        stack.add(v);
+                        stack[top++] = v;
                     }
                     color[u]++;
                 } else {
                     // do work after visiting all neighbors
                     
-                    stack.remove(stack.size() - 1);
+                    top--;
                 }
             }
         }
@@ -173,8 +567,7 @@ public class Graphs {
     // Finds bridges of a graph.
     class Bridges {
         int time;
-        int n;
-        List<List<Integer>> adj;
+        CSRGraph g;
         boolean[] visited;
         int[] s;
         int[] low;
@@ -182,7 +575,8 @@ public class Graphs {
         void dfs(int u, int p) {
             visited[u] = true;
             s[u] = low[u] = time++;
-            for (int v : adj.get(u)) {
+            for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                int v = g.target[e];
                 if (v == p) continue;
                 if (visited[v]) {
                     low[u] = Math.min(low[u], s[v]);
@@ -198,16 +592,430 @@ public class Graphs {
 
         void bridges() {
             time = 0;
-            visited = new boolean[n];
-            s = new int[n];
-            low = new int[n];
+            visited = new boolean[g.n];
+            s = new int[g.n];
+            low = new int[g.n];
             Arrays.fill(s, -1);
             Arrays.fill(low, -1);
-            for (int i = 0; i < n; i++) {
+            for (int i = 0; i < g.n; i++) {
                 if (!visited[i]) {
                     dfs(i, -1);
                 }
             }
         }
     }
+
+    // Parallel single-source shortest paths by delta-stepping, for
+    // non-negative weights. Vertices are kept in buckets of width delta by
+    // tentative distance, and the vertices in the lowest non-empty bucket are
+    // relaxed in parallel on the pool (again and again, until the bucket stays
+    // empty). Distances are lowered with compare-and-set on the dist array, so
+    // relaxing takes no locks. Each worker files the vertices it improves into
+    // its own ring of at most MAX_SLOTS buckets. Vertices too far ahead for
+    // the ring wait in the worker's overflow list, and are moved into the
+    // ring once the current bucket catches up with them.
+    //
+    // After run(s), dist matches dijkstra. parent is filled afterwards from
+    // edges that are tight, so it may pick a different shortest path than
+    // dijkstra does. A delta near the average edge weight is a good start;
+    // a larger delta gives more parallelism but more repeated relaxations.
+    class DeltaStepping {
+        static final VarHandle DIST = MethodHandles.arrayElementVarHandle(long[].class);
+        static final int CHUNK = 256;
+        static final int MAX_SLOTS = 1024;
+
+        CSRGraph g;
+        long delta;
+        ForkJoinPool pool;
+        int workers;
+        int slots;
+        int[][][] bins;
+        int[][] binSize;
+        int[][] overflow;
+        int[] overflowSize;
+        long[] overflowMin;  // lowest bucket in each overflow list
+        int[] frontier = new int[16];
+        int frontierSize;
+        long bucket;
+        AtomicInteger cursor = new AtomicInteger();
+        long[] dist;
+        int[] parent;
+
+        DeltaStepping(CSRGraph g, long delta, ForkJoinPool pool) {
+            if (delta <= 0) throw new IllegalArgumentException();
+            this.g = g;
+            this.delta = delta;
+            this.pool = pool;
+            workers = pool.getParallelism();
+            // A pending vertex is never more than maxWeight / delta + 1 buckets
+            // past the current one, so with that many slots (when it's below
+            // MAX_SLOTS) nothing ever overflows.
+            long maxWeight = 0;
+            for (int w : g.weight) maxWeight = Math.max(maxWeight, w);
+            slots = 1;
+            while (slots < MAX_SLOTS && slots < maxWeight / delta + 2) slots *= 2;
+            bins = new int[workers][slots][];
+            binSize = new int[workers][slots];
+            overflow = new int[workers][16];
+            overflowSize = new int[workers];
+            overflowMin = new long[workers];
+        }
+
+        void run(int s) {
+            dist = new long[g.n];
+            Arrays.fill(dist, Long.MAX_VALUE);
+            dist[s] = 0;
+            frontier[0] = s;
+            frontierSize = 1;
+            bucket = 0;
+            Arrays.fill(overflowSize, 0);
+            Arrays.fill(overflowMin, Long.MAX_VALUE);
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+            do {
+                cursor.set(0);
+                for (int w = 0; w < workers; w++) {
+                    int id = w;
+                    tasks[w] = ForkJoinTask.adapt(() -> relax(id));
+                }
+                pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            } while (nextBucket());
+            findParents(s);
+        }
+
+        // Relaxes the edges of frontier vertices, taking CHUNK at a time.
+        private void relax(int w) {
+            while (true) {
+                int start = cursor.getAndAdd(CHUNK);
+                if (start >= frontierSize) return;
+                int end = Math.min(start + CHUNK, frontierSize);
+                for (int i = start; i < end; i++) {
+                    int u = frontier[i];
+                    long du = (long) DIST.getOpaque(dist, u);
+                    for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                        int v = g.target[e];
+                        long nd = du + g.weight[e];
+                        long old = (long) DIST.getOpaque(dist, v);
+                        while (nd < old) {
+                            long seen = (long) DIST.compareAndExchange(dist, v, old, nd);
+                            if (seen == old) {
+                                file(w, v, nd / delta);
+                                break;
+                            }
+                            old = seen;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Adds v to worker w's bucket b, or to its overflow list if b is
+        // past the end of the ring.
+        private void file(int w, int v, long b) {
+            if (b - bucket >= slots) {
+                if (overflowSize[w] == overflow[w].length) {
+                    overflow[w] = Arrays.copyOf(overflow[w], overflowSize[w] * 2);
+                }
+                overflow[w][overflowSize[w]++] = v;
+                overflowMin[w] = Math.min(overflowMin[w], b);
+                return;
+            }
+            int[][] bin = bins[w];
+            int[] size = binSize[w];
+            int slot = (int) (b & (slots - 1));
+            if (bin[slot] == null) bin[slot] = new int[16];
+            else if (size[slot] == bin[slot].length) {
+                bin[slot] = Arrays.copyOf(bin[slot], size[slot] * 2);
+            }
+            bin[slot][size[slot]++] = v;
+        }
+
+        // Moves the lowest non-empty bucket into frontier. Returns false if
+        // every bucket is empty.
+        private boolean nextBucket() {
+            while (true) {
+                long next = -1;
+                for (long b = bucket; b < bucket + slots && next == -1; b++) {
+                    int slot = (int) (b & (slots - 1));
+                    for (int w = 0; w < workers; w++) {
+                        if (binSize[w][slot] > 0) next = b;
+                    }
+                }
+                long far = Long.MAX_VALUE;
+                for (int w = 0; w < workers; w++) far = Math.min(far, overflowMin[w]);
+                if (next != -1 && next < far) {
+                    take(next);
+                    return true;
+                }
+                if (far == Long.MAX_VALUE) return false;
+                // The overflow holds the next bucket: slide the ring forward to
+                // it and move every overflowed vertex that now fits. Entries
+                // whose distance has since dropped below the new bucket were
+                // filed again when it dropped, so they are dropped here.
+                bucket = far;
+                for (int w = 0; w < workers; w++) {
+                    int[] list = overflow[w];
+                    int size = overflowSize[w];
+                    overflowSize[w] = 0;
+                    overflowMin[w] = Long.MAX_VALUE;
+                    for (int i = 0; i < size; i++) {
+                        long b = dist[list[i]] / delta;
+                        if (b >= bucket) file(w, list[i], b);
+                    }
+                }
+            }
+        }
+
+        // Empties bucket b of every worker into frontier.
+        private void take(long b) {
+            int slot = (int) (b & (slots - 1));
+            int total = 0;
+            for (int w = 0; w < workers; w++) total += binSize[w][slot];
+            if (frontier.length < total) frontier = new int[Math.max(total, frontier.length * 2)];
+            frontierSize = 0;
+            for (int w = 0; w < workers; w++) {
+                if (binSize[w][slot] == 0) continue;
+                System.arraycopy(bins[w][slot], 0, frontier, frontierSize, binSize[w][slot]);
+                frontierSize += binSize[w][slot];
+                binSize[w][slot] = 0;
+            }
+            bucket = b;
+        }
+
+        // Builds a shortest path tree by a BFS over tight edges from s.
+        private void findParents(int s) {
+            parent = new int[g.n];
+            Arrays.fill(parent, -1);
+            boolean[] seen = new boolean[g.n];
+            int[] queue = new int[g.n];
+            int head = 0;
+            int tail = 0;
+            seen[s] = true;
+            queue[tail++] = s;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = g.offset[u]; e < g.offset[u+1]; e++) {
+                    int v = g.target[e];
+                    if (!seen[v] && dist[u] + g.weight[e] == dist[v]) {
+                        seen[v] = true;
+                        parent[v] = u;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+        }
+    }
+
+    // Point-to-point shortest paths by bidirectional A* with ALT potentials
+    // (A*, landmarks, triangle inequality), for non-negative weights. The
+    // constructor runs two searches per landmark to fill the distance tables
+    // once; after that, each query(s, t) settles only vertices near the
+    // shortest path instead of the whole graph.
+    //
+    // For a landmark L, the triangle inequality gives the lower bounds
+    // d(v, t) >= from[L][t] - from[L][v] and d(v, t) >= to[L][v] - to[L][t].
+    // The two searches use the average of the forward and reverse bounds, so
+    // both key vertices consistently and can stop as soon as the sum of their
+    // top keys reaches the best path found. Keys are doubled to stay integral.
+    // The tables also prune vertices: if L reaches v but not t (or t reaches L
+    // but v doesn't), then v can't reach t, and likewise for s in reverse.
+    //
+    // Landmarks are picked farthest-first, which tends to put them on the
+    // edge of the graph. 8 to 16 is usually plenty. Memory is O(k * n).
+    class ALT {
+        static final long INF = Long.MAX_VALUE;
+
+        CSRGraph g;
+        CSRGraph rev;
+        int[] landmarks;
+        long[][] from;  // from[i][v] = dist(landmarks[i], v)
+        long[][] to;    // to[i][v] = dist(v, landmarks[i])
+
+        // Per-query state, reset lazily through seen[v] != epoch.
+        int[] seen;
+        int epoch;
+        long[] distF, distR;
+        long[] potF, potR;  // lower bounds on d(v, t) and d(s, v)
+        int[] parentF, parentR;
+        Heap heapF, heapR;
+        long[] atS, atT;    // landmark distances at s and t, 4 per landmark
+        int meet;
+        int settled;        // vertices settled by the last query
+
+        ALT(CSRGraph g, int k) {
+            this.g = g;
+            rev = g.reverse();
+            int n = g.n;
+            k = Math.min(k, n);
+            seen = new int[n];
+            distF = new long[n];
+            distR = new long[n];
+            potF = new long[n];
+            potR = new long[n];
+            parentF = new int[n];
+            parentR = new int[n];
+            heapF = new Heap(n);
+            heapR = new Heap(n);
+            atS = new long[2*k];
+            atT = new long[2*k];
+
+            // Start from the vertex farthest from vertex 0, then repeatedly
+            // take the vertex farthest from all landmarks so far. A vertex no
+            // landmark reaches (or is reached by) counts as farthest.
+            landmarks = new int[k];
+            from = new long[k][];
+            to = new long[k][];
+            long[] near = new long[n];
+            long[] d0 = distances(g, 0);
+            long[] d1 = distances(rev, 0);
+            for (int v = 0; v < n; v++) near[v] = Math.min(d0[v], d1[v]);
+            for (int i = 0; i < k; i++) {
+                int best = 0;
+                for (int v = 1; v < n; v++) {
+                    if (near[v] > near[best]) best = v;
+                }
+                landmarks[i] = best;
+                from[i] = distances(g, best);
+                to[i] = distances(rev, best);
+                if (i == 0) Arrays.fill(near, INF);
+                for (int v = 0; v < n; v++) {
+                    near[v] = Math.min(near[v], Math.min(from[i][v], to[i][v]));
+                }
+            }
+        }
+
+        // Returns the distance from s to t, or Long.MAX_VALUE if t is
+        // unreachable. The path is then available from path().
+        long query(int s, int t) {
+            epoch++;
+            heapF.clear();
+            heapR.clear();
+            settled = 0;
+            meet = -1;
+            int k = landmarks.length;
+            for (int i = 0; i < k; i++) {
+                atS[2*i] = from[i][s];
+                atS[2*i+1] = to[i][s];
+                atT[2*i] = from[i][t];
+                atT[2*i+1] = to[i][t];
+            }
+            touch(s);
+            touch(t);
+            if (potF[s] == INF) return INF;
+            distF[s] = 0;
+            distR[t] = 0;
+            heapF.add(s, potF[s] - potR[s]);
+            heapR.add(t, potR[t] - potF[t]);
+            if (s == t) {
+                meet = s;
+                return 0;
+            }
+
+            long mu = INF;
+            while (!heapF.isEmpty() && !heapR.isEmpty()) {
+                long topF = heapF.peekKey();
+                long topR = heapR.peekKey();
+                if (mu != INF && topF + topR >= 2*mu) break;
+                boolean forward = topF <= topR;
+                Heap heap = forward ? heapF : heapR;
+                CSRGraph h = forward ? g : rev;
+                long[] dist = forward ? distF : distR;
+                long[] other = forward ? distR : distF;
+                long[] pot = forward ? potF : potR;
+                int[] parent = forward ? parentF : parentR;
+                int u = heap.extractMin();
+                settled++;
+                for (int e = h.offset[u]; e < h.offset[u+1]; e++) {
+                    int v = h.target[e];
+                    touch(v);
+                    if (pot[v] == INF) continue;
+                    long nd = dist[u] + h.weight[e];
+                    if (nd >= dist[v]) continue;
+                    dist[v] = nd;
+                    parent[v] = u;
+                    long key = 2*nd + (forward ? potF[v] - potR[v] : potR[v] - potF[v]);
+                    if (heap.containsValue(v)) heap.decreaseKey(v, key);
+                    else heap.add(v, key);
+                    if (other[v] != INF && nd + other[v] < mu) {
+                        mu = nd + other[v];
+                        meet = v;
+                    }
+                }
+            }
+            return mu;
+        }
+
+        // Returns the vertices on the path found by the last query, or null
+        // if there was none.
+        int[] path() {
+            if (meet == -1) return null;
+            int len = 1;
+            for (int v = meet; parentF[v] != -1; v = parentF[v]) len++;
+            for (int v = meet; parentR[v] != -1; v = parentR[v]) len++;
+            int[] path = new int[len];
+            int i = 0;
+            for (int v = meet; v != -1; v = parentF[v]) path[i++] = v;
+            for (int l = 0, r = i-1; l < r; l++, r--) {
+                int tmp = path[l];
+                path[l] = path[r];
+                path[r] = tmp;
+            }
+            for (int v = parentR[meet]; v != -1; v = parentR[v]) path[i++] = v;
+            return path;
+        }
+
+        // Resets v's per-query state and computes its potentials, if this
+        // query hasn't seen v yet.
+        private void touch(int v) {
+            if (seen[v] == epoch) return;
+            seen[v] = epoch;
+            distF[v] = INF;
+            distR[v] = INF;
+            parentF[v] = -1;
+            parentR[v] = -1;
+            long pf = 0;
+            long pr = 0;
+            for (int i = 0; i < landmarks.length; i++) {
+                long fv = from[i][v];
+                long tv = to[i][v];
+                long fs = atS[2*i], ts = atS[2*i+1];
+                long ft = atT[2*i], tt = atT[2*i+1];
+                // d(v, t)
+                if (fv != INF && ft == INF || tv == INF && tt != INF) pf = INF;
+                else if (pf != INF) {
+                    if (fv != INF) pf = Math.max(pf, ft - fv);
+                    if (tt != INF) pf = Math.max(pf, tv - tt);
+                }
+                // d(s, v)
+                if (fs != INF && fv == INF || ts == INF && tv != INF) pr = INF;
+                else if (pr != INF) {
+                    if (fs != INF) pr = Math.max(pr, fv - fs);
+                    if (tv != INF) pr = Math.max(pr, ts - tv);
+                }
+            }
+            potF[v] = pf;
+            potR[v] = pr;
+        }
+
+        private long[] distances(CSRGraph h, int s) {
+            long[] dist = new long[h.n];
+            Arrays.fill(dist, INF);
+            dist[s] = 0;
+            Heap heap = heapF;
+            heap.clear();
+            heap.add(s, 0);
+            while (!heap.isEmpty()) {
+                int u = heap.extractMin();
+                for (int e = h.offset[u]; e < h.offset[u+1]; e++) {
+                    int v = h.target[e];
+                    long nd = dist[u] + h.weight[e];
+                    if (nd < dist[v]) {
+                        if (dist[v] == INF) heap.add(v, nd);
+                        else heap.decreaseKey(v, nd);
+                        dist[v] = nd;
+                    }
+                }
+            }
+            return dist;
+        }
+    }
 }
\ No newline at end of file
@@ -1,3 +1,6 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
 class BIT {
     int[] bit;
 
@@ -5,10 +8,13 @@ class BIT {
     BIT(int n) {
         bit = new int[n+2];
     }
+    // O(n): each node passes its total on to its parent.
     BIT(int[] arr) {
         bit = new int[arr.length + 1];
-        for (int i = 0; i < arr.length; i++) {
-            add(i, arr[i]);
+        for (int i = 0; i < arr.length; i++) bit[i+1] = arr[i];
+        for (int i = 1; i < bit.length; i++) {
+            int j = i + (i & -i);
+            if (j < bit.length) bit[j] += bit[i];
         }
     }
 
@@ -30,6 +36,172 @@ class BIT {
             i += i & -i;
         }
     }
+
+    // Returns the smallest i such that query(i) >= sum, or bit.length - 1 if
+    // there is none. Requires all values to be non-negative. O(log n).
+    int lowerBound(int sum) {
+        int pos = 0;
+        for (int pw = Integer.highestOneBit(bit.length - 1); pw > 0; pw >>= 1) {
+            if (pos + pw < bit.length && bit[pos + pw] < sum) {
+                pos += pw;
+                sum -= bit[pos];
+            }
+        }
+        return pos;
+    }
+}
+
+// Same as above but with long values.
+class BIT {
+    long[] bit;
+
+    // n is the maximum index that can be queried/modified.
+    BIT(int n) {
+        bit = new long[n+2];
+    }
+    // O(n): each node passes its total on to its parent.
+    BIT(long[] arr) {
+        bit = new long[arr.length + 1];
+        for (int i = 0; i < arr.length; i++) bit[i+1] = arr[i];
+        for (int i = 1; i < bit.length; i++) {
+            int j = i + (i & -i);
+            if (j < bit.length) bit[j] += bit[i];
+        }
+    }
+
+    // Queries the closed range [0, i]
+    long query(int i) {
+        i++;
+        long sum = 0;
+        while (i >= 1) {
+            sum += bit[i];
+            i -= i & -i;
+        }
+        return sum;
+    }
+
+    void add(int i, long value) {
+        i++;
+        while (i < bit.length) {
+            bit[i] += value;
+            i += i & -i;
+        }
+    }
+
+    // Returns the smallest i such that query(i) >= sum, or bit.length - 1 if
+    // there is none. Requires all values to be non-negative. O(log n).
+    int lowerBound(long sum) {
+        int pos = 0;
+        for (int pw = Integer.highestOneBit(bit.length - 1); pw > 0; pw >>= 1) {
+            if (pos + pw < bit.length && bit[pos + pw] < sum) {
+                pos += pw;
+                sum -= bit[pos];
+            }
+        }
+        return pos;
+    }
+}
+
+// Same as above but all sums are taken modulo MOD.
+class BIT {
+    long MOD = 1_000_000_007;
+    long[] bit;
+
+    // n is the maximum index that can be queried/modified.
+    BIT(int n) {
+        bit = new long[n+2];
+    }
+    // O(n): each node passes its total on to its parent.
+    BIT(long[] arr) {
+        bit = new long[arr.length + 1];
+        for (int i = 0; i < arr.length; i++) bit[i+1] = Math.floorMod(arr[i], MOD);
+        for (int i = 1; i < bit.length; i++) {
+            int j = i + (i & -i);
+            if (j < bit.length) bit[j] = (bit[j] + bit[i]) % MOD;
+        }
+    }
+
+    // Queries the closed range [0, i]
+    long query(int i) {
+        i++;
+        long sum = 0;
+        while (i >= 1) {
+            sum += bit[i];
+            if (sum >= MOD) sum -= MOD;
+            i -= i & -i;
+        }
+        return sum;
+    }
+
+    void add(int i, long value) {
+        value = Math.floorMod(value, MOD);
+        i++;
+        while (i < bit.length) {
+            bit[i] += value;
+            if (bit[i] >= MOD) bit[i] -= MOD;
+            i += i & -i;
+        }
+    }
+}
+
+// BIT supporting range add and range sum, using two BITs: after adding v to
+// [l, r], the prefix sum through i is b1(i) * i - b2(i) for the 1-indexed i.
+class RangeBIT {
+    long[] b1;
+    long[] b2;
+
+    // n is the maximum index that can be queried/modified.
+    RangeBIT(int n) {
+        b1 = new long[n+2];
+        b2 = new long[n+2];
+    }
+    // O(n): the values start out in b2 (negated) with b1 empty.
+    RangeBIT(long[] arr) {
+        b1 = new long[arr.length + 2];
+        b2 = new long[arr.length + 2];
+        for (int i = 0; i < arr.length; i++) b2[i+1] = -arr[i];
+        for (int i = 1; i < b2.length; i++) {
+            int j = i + (i & -i);
+            if (j < b2.length) b2[j] += b2[i];
+        }
+    }
+
+    private void add(long[] bit, int i, long value) {
+        while (i < bit.length) {
+            bit[i] += value;
+            i += i & -i;
+        }
+    }
+
+    private long sum(long[] bit, int i) {
+        long sum = 0;
+        while (i >= 1) {
+            sum += bit[i];
+            i -= i & -i;
+        }
+        return sum;
+    }
+
+    // Adds value to the closed range [l, r]
+    void add(int l, int r, long value) {
+        l++;
+        r++;
+        add(b1, l, value);
+        add(b1, r+1, -value);
+        add(b2, l, value * (l-1));
+        add(b2, r+1, -value * r);
+    }
+
+    // Queries the closed range [0, i]
+    long query(int i) {
+        i++;
+        return sum(b1, i) * i - sum(b2, i);
+    }
+
+    // Queries the closed range [l, r]
+    long query(int l, int r) {
+        return query(r) - query(l-1);
+    }
 }
 
 // 2D BIT
@@ -38,13 +210,23 @@ class BIT2D {
     BIT2D(int m, int n) {
         bit = new int[m+1][n+1];
     }
+    // O(mn): the 1D linear build applied along rows, then along columns.
     BIT2D(int[][] arr) {
         bit = new int[arr.length + 1][arr[0].length + 1];
         for (int i = 0; i < arr.length; i++) {
-            for (int j = 0; j < arr[0].length; j++) {
-                add(i, j, arr[i][j]);
+            for (int j = 0; j < arr[0].length; j++) bit[i+1][j+1] = arr[i][j];
+        }
+        for (int i = 1; i < bit.length; i++) {
+            for (int j = 1; j < bit[0].length; j++) {
+                int k = j + (j & -j);
+                if (k < bit[0].length) bit[i][k] += bit[i][j];
             }
         }
+        for (int i = 1; i < bit.length; i++) {
+            int k = i + (i & -i);
+            if (k >= bit.length) continue;
+            for (int j = 1; j < bit[0].length; j++) bit[k][j] += bit[i][j];
+        }
     }
 
     // Queries the closed range (0, 0) through (r, c)
@@ -63,10 +245,138 @@ class BIT2D {
     void add(int r, int c, int value) {
         r++;
         c++;
-        for (int i = r; i <= bit.length; i += i & -i) {
-            for (int j = c; j <= bit[0].length; j += j & -j) {
+        for (int i = r; i < bit.length; i += i & -i) {
+            for (int j = c; j < bit[0].length; j += j & -j) {
                 bit[i][j] += value;
             }
         }
     }
+}
+
+// 2D BIT over points that are known up front, with coordinates of any size.
+// The x coordinates are compressed, and each x node only keeps the sorted y
+// coordinates of the points under it (its slice of ys), with a 1D BIT over
+// that slice stored in the matching slice of bit. Memory is O(P log P) and
+// add/query are O(log^2 P). Only the given points can be updated; queries
+// accept any coordinates.
+class OfflineBIT2D {
+    long[] xs;
+    int nx;
+    int[] start;
+    long[] ys;
+    long[] bit;
+
+    OfflineBIT2D(long[] px, long[] py) {
+        xs = px.clone();
+        Arrays.sort(xs);
+        for (int i = 0; i < xs.length; i++) {
+            if (i == 0 || xs[i] != xs[i-1]) xs[nx++] = xs[i];
+        }
+        // Slices of node i (1-indexed) are [start[i], start[i+1]).
+        int[] count = new int[nx + 2];
+        for (long x : px) {
+            for (int i = upper(xs, 0, nx, x); i <= nx; i += i & -i) count[i]++;
+        }
+        int[] pos = new int[nx + 2];
+        for (int i = 1; i <= nx; i++) pos[i+1] = pos[i] + count[i];
+        long[] all = new long[pos[nx+1]];
+        int[] fill = pos.clone();
+        for (int p = 0; p < px.length; p++) {
+            for (int i = upper(xs, 0, nx, px[p]); i <= nx; i += i & -i) all[fill[i]++] = py[p];
+        }
+        start = new int[nx + 2];
+        int size = 0;
+        for (int i = 1; i <= nx; i++) {
+            Arrays.sort(all, pos[i], pos[i+1]);
+            start[i] = size;
+            for (int j = pos[i]; j < pos[i+1]; j++) {
+                if (j == pos[i] || all[j] != all[j-1]) all[size++] = all[j];
+            }
+        }
+        start[nx+1] = size;
+        ys = Arrays.copyOf(all, size);
+        bit = new long[size];
+    }
+
+    // Number of values in a[from, to) that are <= x, for sorted distinct a.
+    private static int upper(long[] a, int from, int to, long x) {
+        int i = Arrays.binarySearch(a, from, to, x);
+        return (i < 0 ? -i - 1 : i + 1) - from;
+    }
+
+    // (x, y) must be one of the points given to the constructor.
+    void add(long x, long y, long value) {
+        for (int i = upper(xs, 0, nx, x); i <= nx; i += i & -i) {
+            int s = start[i];
+            int len = start[i+1] - s;
+            for (int j = upper(ys, s, s + len, y); j <= len; j += j & -j) bit[s + j - 1] += value;
+        }
+    }
+
+    // Queries the closed range (-inf, -inf) through (x, y)
+    long query(long x, long y) {
+        long sum = 0;
+        for (int i = upper(xs, 0, nx, x); i > 0; i -= i & -i) {
+            int s = start[i];
+            for (int j = upper(ys, s, start[i+1], y); j > 0; j -= j & -j) sum += bit[s + j - 1];
+        }
+        return sum;
+    }
+
+    // Queries the closed range (x1, y1) through (x2, y2)
+    long query(long x1, long y1, long x2, long y2) {
+        return query(x2, y2) - query(x1 - 1, y2) - query(x2, y1 - 1) + query(x1 - 1, y1 - 1);
+    }
+}
+
+// BIT that many threads can add to at once. Each add goes to one of several
+// stripes, separate BITs in AtomicLongArrays, picked by a per-thread probe.
+// Probes are handed out round-robin, and like LongAdder, a thread whose
+// compareAndSet fails (another writer is on its stripe) moves its probe to a
+// different stripe for its next add, so hot writers spread out. add is
+// lock-free. query merges the prefix of every stripe: it includes every add
+// that finished before it started, but is not an atomic snapshot of adds
+// running concurrently with it.
+class ConcurrentBIT {
+    AtomicLongArray[] stripes;
+    int mask;
+    AtomicInteger nextProbe = new AtomicInteger();
+    ThreadLocal<int[]> probe = ThreadLocal.withInitial(() -> new int[]{nextProbe.getAndIncrement()});
+
+    ConcurrentBIT(int n) {
+        this(n, Runtime.getRuntime().availableProcessors());
+    }
+
+    // n is the maximum index that can be queried/modified.
+    ConcurrentBIT(int n, int parallelism) {
+        int s = 1;
+        while (s < parallelism) s *= 2;
+        stripes = new AtomicLongArray[s];
+        for (int i = 0; i < s; i++) stripes[i] = new AtomicLongArray(n+2);
+        mask = s - 1;
+    }
+
+    void add(int i, long value) {
+        int[] p = probe.get();
+        AtomicLongArray bit = stripes[p[0] & mask];
+        boolean contended = false;
+        i++;
+        while (i < bit.length()) {
+            long curr = bit.get(i);
+            if (bit.compareAndSet(i, curr, curr + value)) i += i & -i;
+            else contended = true;
+        }
+        // An odd step with multiplier 1 mod 4 cycles the low bits through
+        // every stripe.
+        if (contended) p[0] = p[0] * 0x9E3779B9 + 1;
+    }
+
+    // Queries the closed range [0, i]
+    long query(int i) {
+        long sum = 0;
+        for (AtomicLongArray bit : stripes) {
+            for (int j = i + 1; j >= 1; j -= j & -j) sum += bit.get(j);
+        }
+        return sum;
+    }
 }
\ No newline at end of file
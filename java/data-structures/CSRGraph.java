@@ -0,0 +1,46 @@
+// Immutable directed graph in compressed sparse row form: the edges out of u
+// are the indices [offset[u], offset[u+1]) of target and weight. This is
+// three primitive arrays with no per-edge objects or boxing (about 8 bytes per
+// weighted edge), and a vertex's edges are adjacent in memory.
+//
+// For an undirected graph, pass every edge in both directions.
+class CSRGraph {
+    int n;
+    int m;
+    int[] offset;
+    int[] target;
+    int[] weight;
+
+    // Builds the graph with edges from[i] -> to[i] of weight w[i] (w may be
+    // null for an unweighted graph) using a counting sort, O(n + m). Edges
+    // keep their input order within each vertex.
+    CSRGraph(int n, int[] from, int[] to, int[] w) {
+        this.n = n;
+        m = from.length;
+        offset = new int[n+1];
+        target = new int[m];
+        weight = w == null ? null : new int[m];
+        for (int i = 0; i < m; i++) offset[from[i]+1]++;
+        for (int u = 0; u < n; u++) offset[u+1] += offset[u];
+        int[] next = new int[n];
+        System.arraycopy(offset, 0, next, 0, n);
+        for (int i = 0; i < m; i++) {
+            int e = next[from[i]]++;
+            target[e] = to[i];
+            if (w != null) weight[e] = w[i];
+        }
+    }
+
+    int degree(int u) {
+        return offset[u+1] - offset[u];
+    }
+
+    // Returns the graph with every edge reversed.
+    CSRGraph reverse() {
+        int[] from = new int[m];
+        for (int u = 0; u < n; u++) {
+            for (int e = offset[u]; e < offset[u+1]; e++) from[e] = u;
+        }
+        return new CSRGraph(n, target, from, weight);
+    }
+}
\ No newline at end of file
@@ -1,261 +1,638 @@
 import java.util.*;
 
-// A heap which supports int values keyed by ints. It only supports values less
-// than the value N provided in the constructor. Duplicates are not allowed.
+// An indexed d-ary heap of int values keyed by longs (which also covers int
+// keys). It only supports values less than the value N provided in the
+// constructor. Duplicates are not allowed.
+//
+// Each entry is a (key, value) pair stored side by side in one long array, so
+// sifting reads a single array, and sifting moves a hole instead of swapping.
+// The default d = 4 gives a shallower tree whose children share a cache line.
 //
 // Its space usage is O(N), regardless of how many entries are actually added.
+// clear() only touches the current entries.
 class Heap {
-    int[] values;
-    int[] keys;
+    int d;
+    long[] heap;
     int[] valToIdx;
     int size;
 
     Heap(int n) {
-        values = new int[n];
-        keys = new int[n];
+        this(n, 4);
+    }
+
+    Heap(int n, int d) {
+        this.d = d;
+        heap = new long[2*n];
         valToIdx = new int[n];
         Arrays.fill(valToIdx, -1);
     }
 
+    // Builds a heap of the values [0, keys.length) keyed by keys in O(n).
+    static Heap from(long[] keys) {
+        Heap h = new Heap(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            h.heap[2*i] = keys[i];
+            h.heap[2*i+1] = i;
+        }
+        h.size = keys.length;
+        h.heapify();
+        return h;
+    }
+
+    // Builds a heap of values[i] keyed by keys[i] in O(values.length). Values
+    // must be less than n.
+    static Heap from(int n, int[] values, long[] keys) {
+        Heap h = new Heap(n);
+        h.addAll(values, keys);
+        return h;
+    }
+
     boolean isEmpty() { return size == 0; }
+    int size() { return size; }
     boolean containsValue(int value) { return valToIdx[value] != -1; }
-    int getKey(int value) { return keys[valToIdx[value]]; }
-    int peek() { return values[0]; }
+    long getKey(int value) { return heap[2*valToIdx[value]]; }
+    int peek() { return (int) heap[1]; }
+    long peekKey() { return heap[0]; }
 
-    void add(int value, int key) {
-        values[size] = value;
-        keys[size] = key;
-        valToIdx[value] = size;
-        size++;
-        decreaseKey(value, key);
+    void add(int value, long key) {
+        heap[2*size] = key;
+        heap[2*size+1] = value;
+        siftUp(size++);
     }
 
-    void decreaseKey(int value, int newKey) {
-        int i = valToIdx[value];
-        int pi = parent(i);
-        keys[i] = newKey;
-        while (i > 0 && keys[pi] > keys[i]) {
-            int tempV = values[i];
-            int tempK = keys[i];
-            values[i] = values[pi];
-            keys[i] = keys[pi];
-            valToIdx[values[pi]] = i;
-            values[pi] = tempV;
-            keys[pi] = tempK;
-            valToIdx[tempV] = pi;
-            i = pi;
-            pi = parent(i);
+    // Adds values[i] keyed by keys[i] for each i. A batch at least half the
+    // size of the heap is appended and the whole heap rebuilt in O(size),
+    // rather than sifting each entry up.
+    void addAll(int[] values, long[] keys) {
+        if (2 * values.length < size) {
+            for (int i = 0; i < values.length; i++) add(values[i], keys[i]);
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            heap[2*size] = keys[i];
+            heap[2*size+1] = values[i];
+            size++;
         }
+        heapify();
+    }
+
+    void decreaseKey(int value, long newKey) {
+        int i = valToIdx[value];
+        heap[2*i] = newKey;
+        siftUp(i);
+    }
+
+    void increaseKey(int value, long newKey) {
+        int i = valToIdx[value];
+        heap[2*i] = newKey;
+        siftDown(i);
     }
 
     int extractMin() {
-        int min = values[0];
-        values[0] = values[size-1];
-        keys[0] = keys[size-1];
-        valToIdx[values[0]] = 0;
-        size--;
-        valToIdx[min] = -1;
-        heapify(0);
+        int min = (int) heap[1];
+        removeAt(0);
         return min;
     }
 
-    int parent(int index) { return index == 0 ? 0 : (index - 1) >> 1; }
-    int left(int index) { return (index << 1) + 1; }
-    int right(int index) { return (index << 1) + 2; }
-    void heapify(int i) {
-        int l = left(i);
-        int r = right(i);
-        int smallest = i;
-        if (l < size && keys[l] < keys[smallest]) smallest = l;
-        if (r < size && keys[r] < keys[smallest]) smallest = r;
-        if (smallest == i) return;
-        int tempV = values[i];
-        int tempK = keys[i];
-        values[i] = values[smallest];
-        keys[i] = keys[smallest];
-        valToIdx[values[i]] = i;
-        values[smallest] = tempV;
-        keys[smallest] = tempK;
-        valToIdx[tempV] = smallest;
-        heapify(smallest);
+    // Extracts up to k entries in increasing key order into values (and keys,
+    // if not null) and returns how many were extracted. O(k log n), with no
+    // allocation.
+    int extractMinBatch(int k, int[] values, long[] keys) {
+        k = Math.min(k, size);
+        for (int i = 0; i < k; i++) {
+            if (keys != null) keys[i] = heap[0];
+            values[i] = (int) heap[1];
+            removeAt(0);
+        }
+        return k;
+    }
+
+    void remove(int value) {
+        removeAt(valToIdx[value]);
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) valToIdx[(int) heap[2*i+1]] = -1;
+        size = 0;
+    }
+
+    private void removeAt(int i) {
+        valToIdx[(int) heap[2*i+1]] = -1;
+        size--;
+        if (i == size) return;
+        heap[2*i] = heap[2*size];
+        heap[2*i+1] = heap[2*size+1];
+        siftDown(i);
+        siftUp(valToIdx[(int) heap[2*size+1]]);
+    }
+
+    // Floyd's bottom-up heap construction: O(size) overall.
+    private void heapify() {
+        if (size < 2) {
+            if (size == 1) valToIdx[(int) heap[1]] = 0;
+            return;
+        }
+        for (int i = 0; i < size; i++) valToIdx[(int) heap[2*i+1]] = i;
+        for (int i = (size - 2) / d; i >= 0; i--) siftDown(i);
+    }
+
+    private void siftUp(int i) {
+        long key = heap[2*i];
+        long value = heap[2*i+1];
+        while (i > 0) {
+            int p = (i - 1) / d;
+            if (heap[2*p] <= key) break;
+            heap[2*i] = heap[2*p];
+            heap[2*i+1] = heap[2*p+1];
+            valToIdx[(int) heap[2*i+1]] = i;
+            i = p;
+        }
+        heap[2*i] = key;
+        heap[2*i+1] = value;
+        valToIdx[(int) value] = i;
+    }
+
+    private void siftDown(int i) {
+        long key = heap[2*i];
+        long value = heap[2*i+1];
+        while (true) {
+            int c = i*d + 1;
+            if (c >= size) break;
+            int end = Math.min(c + d, size);
+            int best = c;
+            for (int j = c + 1; j < end; j++) {
+                if (heap[2*j] < heap[2*best]) best = j;
+            }
+            if (heap[2*best] >= key) break;
+            heap[2*i] = heap[2*best];
+            heap[2*i+1] = heap[2*best+1];
+            valToIdx[(int) heap[2*i+1]] = i;
+            i = best;
+        }
+        heap[2*i] = key;
+        heap[2*i+1] = value;
+        valToIdx[(int) value] = i;
     }
 }
 
-// Same as above but has long keys, often needed when edge weights are as large as 10^9.
-class Heap {
-    int[] values;
-    long[] keys;
-    int[] valToIdx;
+// A binary heap that supports generic values and priorities. add returns an
+// int handle for the new entry, which getKey, getValue, decreaseKey, and
+// remove take, so the heap needs no map from values to positions (and values
+// don't need to be unique or hashable). Entries live in parallel arrays by
+// heap position, with pos mapping each handle to its position, so sifting
+// does no hashing or allocation. Handles of removed entries are reused.
+//
+// If a comparator is not provided, K must implement Comparable<K>.
+class Heap<V, K> {
+    Object[] values = new Object[16];
+    Object[] keys = new Object[16];
+    int[] handleAt = new int[16];
+    int[] pos = new int[16];
+    int[] free = new int[16];
+    int freeSize;
+    int handles;
     int size;
+    Comparator<K> comparator;
 
-    Heap(int n) {
-        values = new int[n];
-        keys = new long[n];
-        valToIdx = new int[n];
-        Arrays.fill(valToIdx, -1);
+    Heap() {}
+    Heap(Comparator<K> comparator) {
+        this.comparator = comparator;
     }
 
+    int size() { return size; }
     boolean isEmpty() { return size == 0; }
-    boolean containsValue(int value) { return valToIdx[value] != -1; }
-    long getKey(int value) { return keys[valToIdx[value]]; }
-    int peek() { return values[0]; }
+    boolean contains(int handle) { return handle < handles && pos[handle] != -1; }
+    @SuppressWarnings("unchecked")
+    K getKey(int handle) { return (K) keys[pos[handle]]; }
+    @SuppressWarnings("unchecked")
+    V getValue(int handle) { return (V) values[pos[handle]]; }
+    @SuppressWarnings("unchecked")
+    V peek() { return (V) values[0]; }
+    int peekHandle() { return handleAt[0]; }
 
-    void add(int value, int key) {
+    int add(V value, K key) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+            handleAt = Arrays.copyOf(handleAt, size * 2);
+        }
+        int handle;
+        if (freeSize > 0) handle = free[--freeSize];
+        else {
+            if (handles == pos.length) {
+                pos = Arrays.copyOf(pos, handles * 2);
+                free = Arrays.copyOf(free, handles * 2);
+            }
+            handle = handles++;
+        }
         values[size] = value;
         keys[size] = key;
-        valToIdx[value] = size;
-        size++;
-        decreaseKey(value, key);
+        handleAt[size] = handle;
+        pos[handle] = size;
+        siftUp(size++);
+        return handle;
     }
 
-    void decreaseKey(int value, long newKey) {
-        int i = valToIdx[value];
-        int pi = parent(i);
-        keys[i] = newKey;
-        while (i > 0 && keys[pi] > keys[i]) {
-            int tempV = values[i];
-            long tempK = keys[i];
-            values[i] = values[pi];
-            keys[i] = keys[pi];
-            valToIdx[values[pi]] = i;
-            values[pi] = tempV;
-            keys[pi] = tempK;
-            valToIdx[tempV] = pi;
-            i = pi;
-            pi = parent(i);
-        }
+    void decreaseKey(int handle, K newKey) {
+        keys[pos[handle]] = newKey;
+        siftUp(pos[handle]);
     }
 
-    int extractMin() {
-        int min = values[0];
-        values[0] = values[size-1];
-        keys[0] = keys[size-1];
-        valToIdx[values[0]] = 0;
-        size--;
-        valToIdx[min] = -1;
-        heapify(0);
+    V extractMin() {
+        V min = peek();
+        removeAt(0);
         return min;
     }
 
-    int parent(int index) { return index == 0 ? 0 : (index - 1) >> 1; }
-    int left(int index) { return (index << 1) + 1; }
-    int right(int index) { return (index << 1) + 2; }
-    void heapify(int i) {
-        int l = left(i);
-        int r = right(i);
-        int smallest = i;
-        if (l < size && keys[l] < keys[smallest]) smallest = l;
-        if (r < size && keys[r] < keys[smallest]) smallest = r;
-        if (smallest == i) return;
-        int tempV = values[i];
-        long tempK = keys[i];
-        values[i] = values[smallest];
-        keys[i] = keys[smallest];
-        valToIdx[values[i]] = i;
-        values[smallest] = tempV;
-        keys[smallest] = tempK;
-        valToIdx[tempV] = smallest;
-        heapify(smallest);
+    void remove(int handle) {
+        removeAt(pos[handle]);
+    }
+
+    private void removeAt(int i) {
+        free[freeSize++] = handleAt[i];
+        pos[handleAt[i]] = -1;
+        size--;
+        if (i < size) {
+            move(size, i);
+            siftDown(i);
+            siftUp(i);
+        }
+        values[size] = keys[size] = null;
+    }
+
+    private void move(int from, int to) {
+        values[to] = values[from];
+        keys[to] = keys[from];
+        handleAt[to] = handleAt[from];
+        pos[handleAt[to]] = to;
+    }
+
+    private void siftUp(int i) {
+        Object value = values[i];
+        Object key = keys[i];
+        int handle = handleAt[i];
+        while (i > 0) {
+            int p = (i - 1) >> 1;
+            if (compare(keys[p], key) <= 0) break;
+            move(p, i);
+            i = p;
+        }
+        values[i] = value;
+        keys[i] = key;
+        handleAt[i] = handle;
+        pos[handle] = i;
+    }
+
+    private void siftDown(int i) {
+        Object value = values[i];
+        Object key = keys[i];
+        int handle = handleAt[i];
+        while (true) {
+            int c = (i << 1) + 1;
+            if (c >= size) break;
+            if (c + 1 < size && compare(keys[c+1], keys[c]) < 0) c++;
+            if (compare(keys[c], key) >= 0) break;
+            move(c, i);
+            i = c;
+        }
+        values[i] = value;
+        keys[i] = key;
+        handleAt[i] = handle;
+        pos[handle] = i;
+    }
+
+    @SuppressWarnings("unchecked")
+    int compare(Object a, Object b) {
+        return comparator == null
+            ? ((Comparable<K>) a).compareTo((K) b)
+            : comparator.compare((K) a, (K) b);
     }
 }
 
-// A binary heap that supports generic values and priorities. As this heap
-// supports decrease-key, the values must be unique (based on the V's equals
-// method).
-//
-// If a comparator is not provided, K must implement Comparable<K>.
-// 
-// WARNING: This heap's accomodation of generic values has caused it to TLE on
-// some problems, mostly due to the use of the Hashmap. Prefer the map-less
-// implementation if possible.
-class Heap<V, K> {
-    List<Entry> heap = new ArrayList<>();
-    Map<V, Integer> indexOfValue = new HashMap<>();
+// Same API as above but backed by a pairing heap, which is usually faster
+// when decreaseKey is much more common than extractMin: add and decreaseKey
+// are O(1) and extractMin is amortized O(log n). Nodes are handles into
+// parallel arrays, where child is a node's first child, sibling its next
+// sibling, and prev its previous sibling (or parent, for a first child).
+class PairingHeap<V, K> {
+    Object[] values = new Object[16];
+    Object[] keys = new Object[16];
+    int[] child = new int[16];
+    int[] sibling = new int[16];
+    int[] prev = new int[16];
+    boolean[] used = new boolean[16];
+    int[] free = new int[16];
+    int freeSize;
+    int handles;
+    int root = -1;
+    int size;
     Comparator<K> comparator;
 
-    Heap() {}
-    Heap(Comparator<K> comparator) {
+    PairingHeap() {}
+    PairingHeap(Comparator<K> comparator) {
         this.comparator = comparator;
     }
 
-    int size() { return heap.size(); }
-    boolean isEmpty() { return heap.isEmpty(); }
-    boolean containsValue(V value) { return indexOfValue.containsKey(value); }
-    K getKey(V value) { return heap.get(indexOfValue.get(value)).key; }
-    V peek() { return heap.get(0).value; }
-
-    void add(V value, K key) {
-        heap.add(new Entry(value, key));
-        indexOfValue.put(value, heap.size() - 1);
-        decreaseKey(value, key);
-    }
-
-    void decreaseKey(V value, K newKey) {
-        int i = indexOfValue.get(value);
-        heap.get(i).key = newKey;
-        while (i > 0 && compare(heap.get(parent(i)).key, heap.get(i).key) > 0) {
-            Entry temp = heap.get(i);
-            heap.set(i, heap.get(parent(i)));
-            indexOfValue.put(heap.get(parent(i)).value, i);
-            heap.set(parent(i), temp);
-            indexOfValue.put(temp.value, parent(i));
-            i = parent(i);
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+    boolean contains(int handle) { return handle < handles && used[handle]; }
+    @SuppressWarnings("unchecked")
+    K getKey(int handle) { return (K) keys[handle]; }
+    @SuppressWarnings("unchecked")
+    V getValue(int handle) { return (V) values[handle]; }
+    @SuppressWarnings("unchecked")
+    V peek() { return (V) values[root]; }
+    int peekHandle() { return root; }
+
+    int add(V value, K key) {
+        int h;
+        if (freeSize > 0) h = free[--freeSize];
+        else {
+            if (handles == values.length) grow();
+            h = handles++;
         }
+        values[h] = value;
+        keys[h] = key;
+        child[h] = sibling[h] = prev[h] = -1;
+        used[h] = true;
+        size++;
+        root = meld(root, h);
+        return h;
+    }
+
+    void decreaseKey(int handle, K newKey) {
+        keys[handle] = newKey;
+        if (handle == root) return;
+        cut(handle);
+        root = meld(root, handle);
     }
 
     V extractMin() {
-        V min = heap.get(0).value;
-        heap.set(0, heap.get(heap.size() - 1));
-        indexOfValue.put(heap.get(0).value, 0);
-        heap.remove(heap.size() - 1);
-        indexOfValue.remove(min);
-        heapify(0);
+        V min = peek();
+        remove(root);
         return min;
     }
 
-    Set<V> values() {
-        Set<V> values = new HashSet<V>();
-        for (Entry e : heap) values.add(e.value);
-        return values;
+    void remove(int handle) {
+        if (handle == root) root = mergePairs(child[handle]);
+        else {
+            cut(handle);
+            root = meld(root, mergePairs(child[handle]));
+        }
+        values[handle] = keys[handle] = null;
+        used[handle] = false;
+        free[freeSize++] = handle;
+        size--;
+    }
+
+    private void grow() {
+        int n = handles * 2;
+        values = Arrays.copyOf(values, n);
+        keys = Arrays.copyOf(keys, n);
+        child = Arrays.copyOf(child, n);
+        sibling = Arrays.copyOf(sibling, n);
+        prev = Arrays.copyOf(prev, n);
+        used = Arrays.copyOf(used, n);
+        free = Arrays.copyOf(free, n);
     }
 
-    int parent(int index) { return index == 0 ? 0 : (index - 1) >> 1; }
-    int left(int index) { return (index << 1) + 1; }
-    int right(int index) { return (index << 1) + 2; }
-    void heapify(int i) {
-        int l = left(i);
-        int r = right(i);
-        int smallest = i;
-        if (l < size() && compare(heap.get(l).key, heap.get(i).key) < 0) {
-            smallest = l;
+    // Detaches the subtree rooted at non-root node h from its parent.
+    private void cut(int h) {
+        int p = prev[h];
+        if (child[p] == h) child[p] = sibling[h];
+        else sibling[p] = sibling[h];
+        if (sibling[h] != -1) prev[sibling[h]] = p;
+        sibling[h] = prev[h] = -1;
+    }
+
+    // Melds two roots (either may be -1) and returns the new root.
+    private int meld(int a, int b) {
+        if (a == -1) return b;
+        if (b == -1) return a;
+        if (compare(keys[b], keys[a]) < 0) {
+            int temp = a;
+            a = b;
+            b = temp;
         }
-        if (r < size() && compare(heap.get(r).key, heap.get(smallest).key) < 0) {
-            smallest = r;
+        sibling[b] = child[a];
+        if (child[a] != -1) prev[child[a]] = b;
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    // Standard two-pass merge of a list of siblings: meld them in pairs left
+    // to right, then meld the results right to left. The first pass keeps its
+    // results on a stack linked through sibling.
+    private int mergePairs(int first) {
+        int stack = -1;
+        while (first != -1) {
+            int a = first;
+            int b = sibling[a];
+            first = b == -1 ? -1 : sibling[b];
+            sibling[a] = prev[a] = -1;
+            if (b != -1) {
+                sibling[b] = prev[b] = -1;
+                a = meld(a, b);
+            }
+            sibling[a] = stack;
+            stack = a;
         }
-        if (smallest == i) {
-            return;
+        int res = -1;
+        while (stack != -1) {
+            int next = sibling[stack];
+            sibling[stack] = -1;
+            res = meld(res, stack);
+            stack = next;
         }
-        Entry temp = heap.get(i);
-        heap.set(i, heap.get(smallest));
-        indexOfValue.put(heap.get(smallest).value, i);
-        heap.set(smallest, temp);
-        indexOfValue.put(temp.value, smallest);
-        heapify(smallest);
+        if (res != -1) prev[res] = -1;
+        return res;
     }
 
     @SuppressWarnings("unchecked")
-	int compare(K a, K b) {
+    int compare(Object a, Object b) {
         return comparator == null
-            ? ((Comparable<K>) a).compareTo(b)
-            : comparator.compare(a, b);
+            ? ((Comparable<K>) a).compareTo((K) b)
+            : comparator.compare((K) a, (K) b);
+    }
+}
+
+// Monotone priority queue of int values keyed by non-negative longs, e.g. for
+// Dijkstra with integer weights: every key added must be at least the last
+// key extracted, which is kept in last. Entries sit in 65 buckets by the
+// highest bit where their key differs from last, and only move to lower
+// buckets, so each operation is amortized O(log C) for keys up to C.
+//
+// There is no decrease-key: add the value again with the smaller key and skip
+// stale entries when they are extracted.
+class RadixHeap {
+    long[][] keys = new long[65][];
+    int[][] values = new int[65][];
+    int[] sizes = new int[65];
+    long last;
+    int size;
+
+    RadixHeap() {
+        for (int b = 0; b < 65; b++) {
+            keys[b] = new long[4];
+            values[b] = new int[4];
+        }
+    }
+
+    boolean isEmpty() { return size == 0; }
+    int size() { return size; }
+
+    void add(int value, long key) {
+        push(bucket(key), key, value);
+        size++;
+    }
+
+    int extractMin() {
+        if (sizes[0] == 0) {
+            int b = 1;
+            while (sizes[b] == 0) b++;
+            long[] k = keys[b];
+            int[] v = values[b];
+            int count = sizes[b];
+            long min = k[0];
+            for (int i = 1; i < count; i++) min = Math.min(min, k[i]);
+            last = min;
+            sizes[b] = 0;
+            for (int i = 0; i < count; i++) push(bucket(k[i]), k[i], v[i]);
+        }
+        size--;
+        return values[0][--sizes[0]];
     }
 
-    class Entry {
-        V value;
-        K key;
-        Entry(V v, K k) {
-            value = v;
-            key = k;
+    private int bucket(long key) {
+        return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void push(int b, long key, int value) {
+        if (sizes[b] == keys[b].length) {
+            keys[b] = Arrays.copyOf(keys[b], sizes[b] * 2);
+            values[b] = Arrays.copyOf(values[b], sizes[b] * 2);
         }
+        keys[b][sizes[b]] = key;
+        values[b][sizes[b]++] = value;
     }
 }
+
+// A pool of meldable heaps of int values keyed by longs, for merging whole
+// heaps (small-to-large merging, a heap per group where groups get merged,
+// etc.). Each heap is a pairing heap, and all heaps share one set of node
+// arrays in the style of BinaryTrie: a heap is just the index of its root,
+// with -1 being the empty heap. Nodes freed by extractMin are reused.
+//
+// meld, add, and decreaseKey are O(1), extractMin is amortized O(log n).
+// Every operation that changes a heap returns its new root.
+class MeldableHeap {
+    long[] key;
+    int[] value;
+    int[] child;
+    int[] sibling;
+    int[] prev;
+    int[] free;
+    int freeSize;
+    int id = 0;
+
+    MeldableHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        key = new long[capacity];
+        value = new int[capacity];
+        child = new int[capacity];
+        sibling = new int[capacity];
+        prev = new int[capacity];
+        free = new int[capacity];
+    }
+
+    // Creates a heap holding only (value, key). The returned root is also the
+    // node's handle for decreaseKey.
+    int create(int v, long k) {
+        int node;
+        if (freeSize > 0) node = free[--freeSize];
+        else {
+            if (id == key.length) {
+                int n = id * 2;
+                key = Arrays.copyOf(key, n);
+                value = Arrays.copyOf(value, n);
+                child = Arrays.copyOf(child, n);
+                sibling = Arrays.copyOf(sibling, n);
+                prev = Arrays.copyOf(prev, n);
+                free = Arrays.copyOf(free, n);
+            }
+            node = id++;
+        }
+        key[node] = k;
+        value[node] = v;
+        child[node] = sibling[node] = prev[node] = -1;
+        return node;
+    }
+
+    int add(int root, int v, long k) {
+        return meld(root, create(v, k));
+    }
+
+    int minValue(int root) { return value[root]; }
+    long minKey(int root) { return key[root]; }
+
+    int meld(int a, int b) {
+        if (a == -1) return b;
+        if (b == -1) return a;
+        if (key[b] < key[a]) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        sibling[b] = child[a];
+        if (child[a] != -1) prev[child[a]] = b;
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    // Removes the minimum of the heap. Read it first with minValue/minKey.
+    int extractMin(int root) {
+        free[freeSize++] = root;
+        return mergePairs(child[root]);
+    }
+
+    // node must be in the heap rooted at root.
+    int decreaseKey(int root, int node, long newKey) {
+        key[node] = newKey;
+        if (node == root) return root;
+        int p = prev[node];
+        if (child[p] == node) child[p] = sibling[node];
+        else sibling[p] = sibling[node];
+        if (sibling[node] != -1) prev[sibling[node]] = p;
+        sibling[node] = prev[node] = -1;
+        return meld(root, node);
+    }
+
+    // Melds the siblings in pairs left to right, then the results right to
+    // left. The first pass keeps its results on a stack linked by sibling.
+    private int mergePairs(int first) {
+        int stack = -1;
+        while (first != -1) {
+            int a = first;
+            int b = sibling[a];
+            first = b == -1 ? -1 : sibling[b];
+            sibling[a] = prev[a] = -1;
+            if (b != -1) {
+                sibling[b] = prev[b] = -1;
+                a = meld(a, b);
+            }
+            sibling[a] = stack;
+            stack = a;
+        }
+        int res = -1;
+        while (stack != -1) {
+            int next = sibling[stack];
+            sibling[stack] = -1;
+            res = meld(res, stack);
+            stack = next;
+        }
+        if (res != -1) prev[res] = -1;
+        return res;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+// Compact segment tree (2n space, same layout as the first SegmentTree) whose
+// nodes are longs in a memory-mapped file instead of a heap array. This allows
+// trees with billions of elements, keeps them out of the garbage collector's
+// way, and lets a tree be reopened after a restart without rebuilding. Node 0
+// is not part of the tree, so the file stores n there.
+//
+// A single MappedByteBuffer is limited to 2GB, so the file is mapped in chunks
+// of 2^CHUNK_BITS longs. Writes become durable after force(). Java 17 has no
+// way to unmap explicitly; the mappings are released when garbage collected.
+class MappedSegmentTree implements Closeable {
+    static final int CHUNK_BITS = 27;
+    static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    long n;
+    FileChannel channel;
+    MappedByteBuffer[] chunks;
+
+    // Modify identity and combine together. A new file starts with every node
+    // at 0; call setLeaf and build to start from other values.
+    long identity = 0;
+    long combine(long a, long b) {
+        return a + b;
+    }
+
+    // Opens the tree stored at path (whose own n wins), or creates a tree of n
+    // zeros if the file is missing or empty.
+    MappedSegmentTree(Path path, long n) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        if (!created) n = readN();
+        this.n = n;
+        map();
+        if (created) set(0, n);
+    }
+
+    // Reopens an existing tree.
+    MappedSegmentTree(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        n = readN();
+        map();
+    }
+
+    private long readN() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+        channel.read(header, 0);
+        return header.getLong(0);
+    }
+
+    private void map() throws IOException {
+        long size = Math.max(2*n, 1);
+        chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >> CHUNK_BITS)];
+        for (int c = 0; c < chunks.length; c++) {
+            long start = (long) c << CHUNK_BITS;
+            long len = Math.min(CHUNK_MASK + 1, size - start);
+            chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, start * 8, len * 8);
+            chunks[c].order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private long get(long i) {
+        return chunks[(int) (i >> CHUNK_BITS)].getLong((int) (i & CHUNK_MASK) << 3);
+    }
+
+    private void set(long i, long value) {
+        chunks[(int) (i >> CHUNK_BITS)].putLong((int) (i & CHUNK_MASK) << 3, value);
+    }
+
+    // Sets a leaf without updating its ancestors. Call build afterwards.
+    void setLeaf(long i, long value) {
+        set(n + i, value);
+    }
+
+    void build() {
+        for (long i = n - 1; i > 0; i--) set(i, combine(get(i*2), get(i*2+1)));
+    }
+
+    void modify(long i, long value) {
+        set(n + i, value);
+        for (i = (n + i) / 2; i > 0; i /= 2) {
+            set(i, combine(get(i*2), get(i*2+1)));
+        }
+    }
+
+    // Note: input range is half-open [l, r)
+    long query(long l, long r) {
+        l += n;
+        r += n;
+        long resl = identity;
+        long resr = identity;
+        while (l < r) {
+            if ((l & 1) > 0) resl = combine(resl, get(l++));
+            if ((r & 1) > 0) resr = combine(get(--r), resr);
+            l /= 2;
+            r /= 2;
+        }
+        return combine(resl, resr);
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) chunk.force();
+    }
+
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
\ No newline at end of file
@@ -49,4 +49,97 @@ class Multiset<T extends Comparable<T>> {
     T floor(T t) { return map.floorKey(t); }
     T ceiling(T t) { return map.ceilingKey(t); }
     Set<Map.Entry<T, Integer>> entrySet() { return map.entrySet(); }
+}
+
+// Multiset of longs with order statistics, for when every key that can be
+// added is known up front. The keys are coordinate-compressed and their
+// counts kept in a BIT, so every operation is O(log n) with no boxing. kth
+// uses the same binary-lifting descent as BIT.lowerBound.
+//
+// kth is 0-indexed and rank(x) is the number of elements less than x. Queries
+// accept any long, but only keys given to the constructor can be added.
+// first, last, floor, ceiling, lower, and higher return NONE if there is no
+// such element.
+class OrderStatisticMultiset {
+    static final long NONE = Long.MIN_VALUE;
+
+    long[] keys;
+    int m;
+    int[] cnt;
+    int[] bit;
+    int size;
+
+    OrderStatisticMultiset(long[] universe) {
+        keys = universe.clone();
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i-1]) keys[m++] = keys[i];
+        }
+        cnt = new int[m];
+        bit = new int[m+1];
+    }
+
+    boolean isEmpty() { return size == 0; }
+    int size() { return size; }
+    int count(long x) { int i = Arrays.binarySearch(keys, 0, m, x); return i < 0 ? 0 : cnt[i]; }
+    boolean contains(long x) { return count(x) > 0; }
+    void add(long x) { add(x, 1); }
+    void add(long x, int count) { update(index(x), count); }
+    void remove(long x) { remove(x, 1); }
+    void remove(long x, int count) {
+        int i = index(x);
+        if (count > cnt[i]) throw new RuntimeException();
+        update(i, -count);
+    }
+
+    long first() { return size == 0 ? NONE : kth(0); }
+    long last() { return size == 0 ? NONE : kth(size - 1); }
+    int rank(long x) { return prefix(lowerIndex(x)); }
+    long lower(long x) { int c = rank(x); return c == 0 ? NONE : kth(c - 1); }
+    long floor(long x) { int c = prefix(upperIndex(x)); return c == 0 ? NONE : kth(c - 1); }
+    long ceiling(long x) { int c = rank(x); return c == size ? NONE : kth(c); }
+    long higher(long x) { int c = prefix(upperIndex(x)); return c == size ? NONE : kth(c); }
+
+    // Requires 0 <= k < size.
+    long kth(int k) {
+        int pos = 0;
+        for (int pw = Integer.highestOneBit(m); pw > 0; pw >>= 1) {
+            if (pos + pw <= m && bit[pos + pw] <= k) {
+                pos += pw;
+                k -= bit[pos];
+            }
+        }
+        return keys[pos];
+    }
+
+    private int index(long x) {
+        int i = Arrays.binarySearch(keys, 0, m, x);
+        if (i < 0) throw new RuntimeException();
+        return i;
+    }
+
+    // Number of keys less than x.
+    private int lowerIndex(long x) {
+        int i = Arrays.binarySearch(keys, 0, m, x);
+        return i < 0 ? -i - 1 : i;
+    }
+
+    // Number of keys less than or equal to x.
+    private int upperIndex(long x) {
+        int i = Arrays.binarySearch(keys, 0, m, x);
+        return i < 0 ? -i - 1 : i + 1;
+    }
+
+    private void update(int i, int delta) {
+        cnt[i] += delta;
+        size += delta;
+        for (i++; i <= m; i += i & -i) bit[i] += delta;
+    }
+
+    // Number of elements whose key index is less than i.
+    private int prefix(int i) {
+        int sum = 0;
+        for (; i > 0; i -= i & -i) sum += bit[i];
+        return sum;
+    }
 }
\ No newline at end of file
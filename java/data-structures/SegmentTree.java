@@ -1,9 +1,14 @@
+import java.util.*;
+import java.util.function.*;
+
 // This file contains various segment trees.
 // 1) compact segment tree (from codeforces)
 // 2) standard segment tree with friendly indexing
 // 3) segment tree with range updates
-
-// TODO: object-based segment tree, to support sparse
+// 4) persistent segment tree
+// 5) sparse segment tree over a large coordinate range
+// 6) segment tree beats (range chmin/chmax)
+// 7) wide (16-ary) segment trees for fast prefix sums and range min
 
 // Compact segment tree (2n space) based on
 // http://codeforces.com/blog/entry/18051. Doesn't allow more complicated
@@ -11,6 +16,7 @@
 class SegmentTree {
     int n;
     int[] st;
+    int[] stack = new int[64];
 
     // Modify identity and combine together.
     int identity = 0;
@@ -54,6 +60,84 @@ class SegmentTree {
         }
         return combine(resl, resr);
     }
+
+    // Returns the largest r such that pred holds for the combination of
+    // [l, r), or n if it holds for all of [l, n). pred must hold for identity
+    // and stay false once it fails for a range. Runs in O(log n) without
+    // allocating. E.g. with sums, maxRight(l, s -> s < k) is the first r
+    // where the sum of the closed range [l, r] reaches k.
+    int maxRight(int l, IntPredicate pred) {
+        int acc = identity;
+        int top = 0;
+        int r = 2*n;
+        for (l += n; l < r; l /= 2, r /= 2) {
+            if ((l & 1) > 0) {
+                int next = combine(acc, st[l]);
+                if (!pred.test(next)) return descendRight(l, acc, pred);
+                acc = next;
+                l++;
+            }
+            if ((r & 1) > 0) stack[top++] = --r;
+        }
+        while (top > 0) {
+            int v = stack[--top];
+            int next = combine(acc, st[v]);
+            if (!pred.test(next)) return descendRight(v, acc, pred);
+            acc = next;
+        }
+        return n;
+    }
+
+    // Returns the smallest l such that pred holds for the combination of
+    // [l, r), or 0 if it holds for all of [0, r). Same requirements as
+    // maxRight.
+    int minLeft(int r, IntPredicate pred) {
+        int acc = identity;
+        int top = 0;
+        int l = n;
+        for (r += n; l < r; l /= 2, r /= 2) {
+            if ((r & 1) > 0) {
+                int next = combine(st[r-1], acc);
+                if (!pred.test(next)) return descendLeft(r-1, acc, pred);
+                acc = next;
+                r--;
+            }
+            if ((l & 1) > 0) stack[top++] = l++;
+        }
+        while (top > 0) {
+            int v = stack[--top];
+            int next = combine(st[v], acc);
+            if (!pred.test(next)) return descendLeft(v, acc, pred);
+            acc = next;
+        }
+        return 0;
+    }
+
+    // The nodes visited by a query have complete subtrees, so we can walk
+    // down from them even when n is not a power of two.
+    private int descendRight(int v, int acc, IntPredicate pred) {
+        while (v < n) {
+            v *= 2;
+            int next = combine(acc, st[v]);
+            if (pred.test(next)) {
+                acc = next;
+                v++;
+            }
+        }
+        return v - n;
+    }
+
+    private int descendLeft(int v, int acc, IntPredicate pred) {
+        while (v < n) {
+            v = v*2 + 1;
+            int next = combine(st[v], acc);
+            if (pred.test(next)) {
+                acc = next;
+                v--;
+            }
+        }
+        return v + 1 - n;
+    }
 }
 
 // A standard segment tree, where node i has children i*2 and i*2+1. This
@@ -90,12 +174,12 @@ class SegmentTree {
     }
 
     private void modify(int v, int l, int r, int i, int value) {
-        if (l == r) t[v] = value;
+        if (l == r) st[v] = value;
         else {
             int m = l + (r - l) / 2;
             if (i <= m) modify(2*v, l, m, i, value);
             else modify(2*v+1, m+1, r, i, value);
-            t[v] = combine(t[2*v], t[2*v+1]);
+            st[v] = combine(st[2*v], st[2*v+1]);
         }
     }
 
@@ -114,99 +198,1222 @@ class SegmentTree {
     }
 }
 
-// Segment tree which supports range updates. Note lazyFunction, which governs
-// how updates are applied to node values as well as other lazy values.
-// 
-// Examples:
-//   for range add, return currVal + lazyVal
-//   for range assign, return lazyVal
+// Segment tree which supports range updates, built bottom-up with no
+// recursion (see https://codeforces.com/blog/entry/18051, section "Lazy
+// propagation"). The number of leaves is padded to a power of two so every
+// node covers a contiguous, aligned range. Pending updates are only stored for
+// internal nodes, and a node has nothing to push when its lazy value equals
+// op.noLazy(), so the tree uses 3 * size ints in total.
+//
+// The values and updates are described by an Op. Default code below is range
+// minimum query with range addition. Other examples:
+//   for range add / range sum, apply returns v + lz * len
+//   for range assign / range min, apply and compose return the newer value,
+//     and noLazy is any value that is never assigned
 class SegmentTree {
+    interface Op {
+        int identity();
+        int combine(int a, int b);
+        // The update that changes nothing. apply(v, noLazy(), len) == v.
+        int noLazy();
+        // Applies update lz to a node with value v covering len leaves.
+        int apply(int v, int lz, int len);
+        // The single update equivalent to applying older and then newer.
+        int compose(int newer, int older);
+    }
+
+    static final Op MIN_ADD = new Op() {
+        public int identity() { return Integer.MAX_VALUE; }
+        public int combine(int a, int b) { return Math.min(a, b); }
+        public int noLazy() { return 0; }
+        public int apply(int v, int lz, int len) { return v + lz; }
+        public int compose(int newer, int older) { return newer + older; }
+    };
+
+    static final Op SUM_ADD = new Op() {
+        public int identity() { return 0; }
+        public int combine(int a, int b) { return a + b; }
+        public int noLazy() { return 0; }
+        public int apply(int v, int lz, int len) { return v + lz * len; }
+        public int compose(int newer, int older) { return newer + older; }
+    };
+
     int n;
+    int size;
+    int log;
     int[] st;
-    boolean[] hasLazy;
     int[] lazy;
+    Op op;
+    int identity;
+    int noLazy;
 
-    // Adjust identity, combine, and lazyFunction together to suit needs.
-    // Default code below is range minimum query with range addition.
-    int identity = 0;
-    int combine(int a, int b) {
-        return Math.min(a, b);
+    SegmentTree(int[] arr) {
+        this(arr, MIN_ADD);
+    }
+
+    SegmentTree(int[] arr, Op op) {
+        this.op = op;
+        identity = op.identity();
+        noLazy = op.noLazy();
+        n = arr.length;
+        while ((1 << log) < n) log++;
+        size = 1 << log;
+        st = new int[2*size];
+        lazy = new int[size];
+        for (int i = 0; i < size; i++) {
+            st[size + i] = i < n ? arr[i] : identity;
+            lazy[i] = noLazy;
+        }
+        for (int i = size - 1; i > 0; i--) update(i);
     }
-    int lazyFunction(int currVal, int lazyVal) {
-        return currVal + lazyVal;
+
+    private void update(int i) {
+        st[i] = op.combine(st[i*2], st[i*2+1]);
     }
 
-    SegmentTree(int[] arr) {
+    private void applyAt(int i, int lz, int len) {
+        st[i] = op.apply(st[i], lz, len);
+        if (i < size) lazy[i] = op.compose(lz, lazy[i]);
+    }
+
+    // Pushes the pending update of node i, which is at height h.
+    private void push(int i, int h) {
+        if (lazy[i] == noLazy) return;
+        applyAt(i*2, lazy[i], 1 << (h-1));
+        applyAt(i*2+1, lazy[i], 1 << (h-1));
+        lazy[i] = noLazy;
+    }
+
+    // Note: input range is closed [l, r]
+    void modify(int l, int r, int value) {
+        l += size;
+        r += size + 1;
+        for (int h = log; h >= 1; h--) {
+            if (((l >> h) << h) != l) push(l >> h, h);
+            if (((r >> h) << h) != r) push((r - 1) >> h, h);
+        }
+        for (int a = l, b = r, len = 1; a < b; a /= 2, b /= 2, len *= 2) {
+            if ((a & 1) > 0) applyAt(a++, value, len);
+            if ((b & 1) > 0) applyAt(--b, value, len);
+        }
+        for (int h = 1; h <= log; h++) {
+            if (((l >> h) << h) != l) update(l >> h);
+            if (((r >> h) << h) != r) update((r - 1) >> h);
+        }
+    }
+
+    // Note: input range is closed [l, r]
+    int query(int l, int r) {
+        l += size;
+        r += size + 1;
+        for (int h = log; h >= 1; h--) {
+            if (((l >> h) << h) != l) push(l >> h, h);
+            if (((r >> h) << h) != r) push((r - 1) >> h, h);
+        }
+        int resl = identity;
+        int resr = identity;
+        while (l < r) {
+            if ((l & 1) > 0) resl = op.combine(resl, st[l++]);
+            if ((r & 1) > 0) resr = op.combine(st[--r], resr);
+            l /= 2;
+            r /= 2;
+        }
+        return op.combine(resl, resr);
+    }
+
+    // Returns the largest r such that pred holds for query(l, r-1), or n if
+    // it holds for all of [l, n-1]. pred must hold for identity and stay false
+    // once it fails for a range. Runs in O(log n) without allocating. E.g.
+    // with sums, maxRight(l, s -> s < k) is the first r where query(l, r)
+    // reaches k.
+    int maxRight(int l, IntPredicate pred) {
+        if (l == n) return n;
+        l += size;
+        for (int h = log; h >= 1; h--) push(l >> h, h);
+        int acc = identity;
+        int h = 0;
+        do {
+            while ((l & 1) == 0) {
+                l /= 2;
+                h++;
+            }
+            int next = op.combine(acc, st[l]);
+            if (!pred.test(next)) {
+                while (l < size) {
+                    push(l, h);
+                    l *= 2;
+                    h--;
+                    next = op.combine(acc, st[l]);
+                    if (pred.test(next)) {
+                        acc = next;
+                        l++;
+                    }
+                }
+                return l - size;
+            }
+            acc = next;
+            l++;
+        } while ((l & -l) != l);
+        return n;
+    }
+
+    // Returns the smallest l such that pred holds for query(l, r-1), or 0 if
+    // it holds for all of [0, r-1]. Same requirements as maxRight.
+    int minLeft(int r, IntPredicate pred) {
+        if (r == 0) return 0;
+        r += size;
+        for (int h = log; h >= 1; h--) push((r - 1) >> h, h);
+        int acc = identity;
+        int h = 0;
+        do {
+            r--;
+            while (r > 1 && (r & 1) > 0) {
+                r /= 2;
+                h++;
+            }
+            int next = op.combine(st[r], acc);
+            if (!pred.test(next)) {
+                while (r < size) {
+                    push(r, h);
+                    r = r*2 + 1;
+                    h--;
+                    next = op.combine(st[r], acc);
+                    if (pred.test(next)) {
+                        acc = next;
+                        r--;
+                    }
+                }
+                return r + 1 - size;
+            }
+            acc = next;
+        } while ((r & -r) != r);
+        return 0;
+    }
+}
+
+// Same as above but with long values.
+class SegmentTree {
+    interface Op {
+        long identity();
+        long combine(long a, long b);
+        // The update that changes nothing. apply(v, noLazy(), len) == v.
+        long noLazy();
+        // Applies update lz to a node with value v covering len leaves.
+        long apply(long v, long lz, int len);
+        // The single update equivalent to applying older and then newer.
+        long compose(long newer, long older);
+    }
+
+    static final Op MIN_ADD = new Op() {
+        public long identity() { return Long.MAX_VALUE; }
+        public long combine(long a, long b) { return Math.min(a, b); }
+        public long noLazy() { return 0; }
+        public long apply(long v, long lz, int len) { return v + lz; }
+        public long compose(long newer, long older) { return newer + older; }
+    };
+
+    static final Op SUM_ADD = new Op() {
+        public long identity() { return 0; }
+        public long combine(long a, long b) { return a + b; }
+        public long noLazy() { return 0; }
+        public long apply(long v, long lz, int len) { return v + lz * len; }
+        public long compose(long newer, long older) { return newer + older; }
+    };
+
+    int n;
+    int size;
+    int log;
+    long[] st;
+    long[] lazy;
+    Op op;
+    long identity;
+    long noLazy;
+
+    SegmentTree(long[] arr) {
+        this(arr, MIN_ADD);
+    }
+
+    SegmentTree(long[] arr, Op op) {
+        this.op = op;
+        identity = op.identity();
+        noLazy = op.noLazy();
         n = arr.length;
-        st = new int[4*n];
-        hasLazy = new boolean[4*n];
-        lazy = new int[4*n];
-        build(arr, 1, 0, n-1);
+        while ((1 << log) < n) log++;
+        size = 1 << log;
+        st = new long[2*size];
+        lazy = new long[size];
+        for (int i = 0; i < size; i++) {
+            st[size + i] = i < n ? arr[i] : identity;
+            lazy[i] = noLazy;
+        }
+        for (int i = size - 1; i > 0; i--) update(i);
     }
 
-    private void build(int[] arr, int i, int l, int r) {
-        if (l == r) st[i] = arr[l];
+    private void update(int i) {
+        st[i] = op.combine(st[i*2], st[i*2+1]);
+    }
+
+    private void applyAt(int i, long lz, int len) {
+        st[i] = op.apply(st[i], lz, len);
+        if (i < size) lazy[i] = op.compose(lz, lazy[i]);
+    }
+
+    // Pushes the pending update of node i, which is at height h.
+    private void push(int i, int h) {
+        if (lazy[i] == noLazy) return;
+        applyAt(i*2, lazy[i], 1 << (h-1));
+        applyAt(i*2+1, lazy[i], 1 << (h-1));
+        lazy[i] = noLazy;
+    }
+
+    // Note: input range is closed [l, r]
+    void modify(int l, int r, long value) {
+        l += size;
+        r += size + 1;
+        for (int h = log; h >= 1; h--) {
+            if (((l >> h) << h) != l) push(l >> h, h);
+            if (((r >> h) << h) != r) push((r - 1) >> h, h);
+        }
+        for (int a = l, b = r, len = 1; a < b; a /= 2, b /= 2, len *= 2) {
+            if ((a & 1) > 0) applyAt(a++, value, len);
+            if ((b & 1) > 0) applyAt(--b, value, len);
+        }
+        for (int h = 1; h <= log; h++) {
+            if (((l >> h) << h) != l) update(l >> h);
+            if (((r >> h) << h) != r) update((r - 1) >> h);
+        }
+    }
+
+    // Note: input range is closed [l, r]
+    long query(int l, int r) {
+        l += size;
+        r += size + 1;
+        for (int h = log; h >= 1; h--) {
+            if (((l >> h) << h) != l) push(l >> h, h);
+            if (((r >> h) << h) != r) push((r - 1) >> h, h);
+        }
+        long resl = identity;
+        long resr = identity;
+        while (l < r) {
+            if ((l & 1) > 0) resl = op.combine(resl, st[l++]);
+            if ((r & 1) > 0) resr = op.combine(st[--r], resr);
+            l /= 2;
+            r /= 2;
+        }
+        return op.combine(resl, resr);
+    }
+
+    // Returns the largest r such that pred holds for query(l, r-1), or n if
+    // it holds for all of [l, n-1]. pred must hold for identity and stay false
+    // once it fails for a range. Runs in O(log n) without allocating. E.g.
+    // with sums, maxRight(l, s -> s < k) is the first r where query(l, r)
+    // reaches k.
+    int maxRight(int l, LongPredicate pred) {
+        if (l == n) return n;
+        l += size;
+        for (int h = log; h >= 1; h--) push(l >> h, h);
+        long acc = identity;
+        int h = 0;
+        do {
+            while ((l & 1) == 0) {
+                l /= 2;
+                h++;
+            }
+            long next = op.combine(acc, st[l]);
+            if (!pred.test(next)) {
+                while (l < size) {
+                    push(l, h);
+                    l *= 2;
+                    h--;
+                    next = op.combine(acc, st[l]);
+                    if (pred.test(next)) {
+                        acc = next;
+                        l++;
+                    }
+                }
+                return l - size;
+            }
+            acc = next;
+            l++;
+        } while ((l & -l) != l);
+        return n;
+    }
+
+    // Returns the smallest l such that pred holds for query(l, r-1), or 0 if
+    // it holds for all of [0, r-1]. Same requirements as maxRight.
+    int minLeft(int r, LongPredicate pred) {
+        if (r == 0) return 0;
+        r += size;
+        for (int h = log; h >= 1; h--) push((r - 1) >> h, h);
+        long acc = identity;
+        int h = 0;
+        do {
+            r--;
+            while (r > 1 && (r & 1) > 0) {
+                r /= 2;
+                h++;
+            }
+            long next = op.combine(st[r], acc);
+            if (!pred.test(next)) {
+                while (r < size) {
+                    push(r, h);
+                    r = r*2 + 1;
+                    h--;
+                    next = op.combine(st[r], acc);
+                    if (pred.test(next)) {
+                        acc = next;
+                        r--;
+                    }
+                }
+                return r + 1 - size;
+            }
+            acc = next;
+        } while ((r & -r) != r);
+        return 0;
+    }
+}
+
+// Same as above but with double values. Note that noLazy is compared with ==,
+// so avoid NaN as the sentinel.
+class SegmentTree {
+    interface Op {
+        double identity();
+        double combine(double a, double b);
+        // The update that changes nothing. apply(v, noLazy(), len) == v.
+        double noLazy();
+        // Applies update lz to a node with value v covering len leaves.
+        double apply(double v, double lz, int len);
+        // The single update equivalent to applying older and then newer.
+        double compose(double newer, double older);
+    }
+
+    static final Op MIN_ADD = new Op() {
+        public double identity() { return Double.POSITIVE_INFINITY; }
+        public double combine(double a, double b) { return Math.min(a, b); }
+        public double noLazy() { return 0; }
+        public double apply(double v, double lz, int len) { return v + lz; }
+        public double compose(double newer, double older) { return newer + older; }
+    };
+
+    static final Op SUM_ADD = new Op() {
+        public double identity() { return 0; }
+        public double combine(double a, double b) { return a + b; }
+        public double noLazy() { return 0; }
+        public double apply(double v, double lz, int len) { return v + lz * len; }
+        public double compose(double newer, double older) { return newer + older; }
+    };
+
+    int n;
+    int size;
+    int log;
+    double[] st;
+    double[] lazy;
+    Op op;
+    double identity;
+    double noLazy;
+
+    SegmentTree(double[] arr) {
+        this(arr, MIN_ADD);
+    }
+
+    SegmentTree(double[] arr, Op op) {
+        this.op = op;
+        identity = op.identity();
+        noLazy = op.noLazy();
+        n = arr.length;
+        while ((1 << log) < n) log++;
+        size = 1 << log;
+        st = new double[2*size];
+        lazy = new double[size];
+        for (int i = 0; i < size; i++) {
+            st[size + i] = i < n ? arr[i] : identity;
+            lazy[i] = noLazy;
+        }
+        for (int i = size - 1; i > 0; i--) update(i);
+    }
+
+    private void update(int i) {
+        st[i] = op.combine(st[i*2], st[i*2+1]);
+    }
+
+    private void applyAt(int i, double lz, int len) {
+        st[i] = op.apply(st[i], lz, len);
+        if (i < size) lazy[i] = op.compose(lz, lazy[i]);
+    }
+
+    // Pushes the pending update of node i, which is at height h.
+    private void push(int i, int h) {
+        if (lazy[i] == noLazy) return;
+        applyAt(i*2, lazy[i], 1 << (h-1));
+        applyAt(i*2+1, lazy[i], 1 << (h-1));
+        lazy[i] = noLazy;
+    }
+
+    // Note: input range is closed [l, r]
+    void modify(int l, int r, double value) {
+        l += size;
+        r += size + 1;
+        for (int h = log; h >= 1; h--) {
+            if (((l >> h) << h) != l) push(l >> h, h);
+            if (((r >> h) << h) != r) push((r - 1) >> h, h);
+        }
+        for (int a = l, b = r, len = 1; a < b; a /= 2, b /= 2, len *= 2) {
+            if ((a & 1) > 0) applyAt(a++, value, len);
+            if ((b & 1) > 0) applyAt(--b, value, len);
+        }
+        for (int h = 1; h <= log; h++) {
+            if (((l >> h) << h) != l) update(l >> h);
+            if (((r >> h) << h) != r) update((r - 1) >> h);
+        }
+    }
+
+    // Note: input range is closed [l, r]
+    double query(int l, int r) {
+        l += size;
+        r += size + 1;
+        for (int h = log; h >= 1; h--) {
+            if (((l >> h) << h) != l) push(l >> h, h);
+            if (((r >> h) << h) != r) push((r - 1) >> h, h);
+        }
+        double resl = identity;
+        double resr = identity;
+        while (l < r) {
+            if ((l & 1) > 0) resl = op.combine(resl, st[l++]);
+            if ((r & 1) > 0) resr = op.combine(st[--r], resr);
+            l /= 2;
+            r /= 2;
+        }
+        return op.combine(resl, resr);
+    }
+
+    // Returns the largest r such that pred holds for query(l, r-1), or n if
+    // it holds for all of [l, n-1]. pred must hold for identity and stay false
+    // once it fails for a range. Runs in O(log n) without allocating. E.g.
+    // with sums, maxRight(l, s -> s < k) is the first r where query(l, r)
+    // reaches k.
+    int maxRight(int l, DoublePredicate pred) {
+        if (l == n) return n;
+        l += size;
+        for (int h = log; h >= 1; h--) push(l >> h, h);
+        double acc = identity;
+        int h = 0;
+        do {
+            while ((l & 1) == 0) {
+                l /= 2;
+                h++;
+            }
+            double next = op.combine(acc, st[l]);
+            if (!pred.test(next)) {
+                while (l < size) {
+                    push(l, h);
+                    l *= 2;
+                    h--;
+                    next = op.combine(acc, st[l]);
+                    if (pred.test(next)) {
+                        acc = next;
+                        l++;
+                    }
+                }
+                return l - size;
+            }
+            acc = next;
+            l++;
+        } while ((l & -l) != l);
+        return n;
+    }
+
+    // Returns the smallest l such that pred holds for query(l, r-1), or 0 if
+    // it holds for all of [0, r-1]. Same requirements as maxRight.
+    int minLeft(int r, DoublePredicate pred) {
+        if (r == 0) return 0;
+        r += size;
+        for (int h = log; h >= 1; h--) push((r - 1) >> h, h);
+        double acc = identity;
+        int h = 0;
+        do {
+            r--;
+            while (r > 1 && (r & 1) > 0) {
+                r /= 2;
+                h++;
+            }
+            double next = op.combine(st[r], acc);
+            if (!pred.test(next)) {
+                while (r < size) {
+                    push(r, h);
+                    r = r*2 + 1;
+                    h--;
+                    next = op.combine(st[r], acc);
+                    if (pred.test(next)) {
+                        acc = next;
+                        r--;
+                    }
+                }
+                return r + 1 - size;
+            }
+            acc = next;
+        } while ((r & -r) != r);
+        return 0;
+    }
+}
+
+// Persistent segment tree of sums over positions [0, n-1]. Every update copies
+// the O(log n) nodes on one root-to-leaf path and returns the root of a new
+// version, leaving older versions intact. Nodes live in int/long pools in the
+// style of BinaryTrie, but the pools double when full instead of being sized
+// up front. Node 0 is the all-zero tree and is its own child, so the first
+// version can simply be root 0.
+//
+// Example (kth smallest in a[l..r]): compress the values of a to [0, n-1], set
+// root[0] = 0 and root[i+1] = add(root[i], a[i], 1), then the answer is
+// kth(root[l], root[r+1], k).
+class PersistentSegmentTree {
+    int n;
+    int[] left;
+    int[] right;
+    long[] sum;
+    int id = 1;
+
+    PersistentSegmentTree(int n) {
+        this(n, 1 << 10);
+    }
+
+    // capacity is only a hint, e.g. (number of updates) * (log n + 2).
+    PersistentSegmentTree(int n, int capacity) {
+        this.n = n;
+        capacity = Math.max(capacity, 2);
+        left = new int[capacity];
+        right = new int[capacity];
+        sum = new long[capacity];
+    }
+
+    private int copy(int node) {
+        if (id == sum.length) {
+            left = Arrays.copyOf(left, id * 2);
+            right = Arrays.copyOf(right, id * 2);
+            sum = Arrays.copyOf(sum, id * 2);
+        }
+        left[id] = left[node];
+        right[id] = right[node];
+        sum[id] = sum[node];
+        return id++;
+    }
+
+    // Returns the root of a version holding arr. Uses 2n-1 nodes.
+    int build(long[] arr) {
+        return build(arr, 0, n-1);
+    }
+
+    private int build(long[] arr, int l, int r) {
+        int v = copy(0);
+        if (l == r) sum[v] = arr[l];
         else {
             int m = l + (r - l) / 2;
-            build(arr, 2*i, l, m);
-            build(arr, 2*i+1, m+1, r);
-            st[i] = combine(st[2*i], st[2*i+1]);
+            int a = build(arr, l, m);
+            int b = build(arr, m+1, r);
+            left[v] = a;
+            right[v] = b;
+            sum[v] = sum[a] + sum[b];
+        }
+        return v;
+    }
+
+    // Returns the root of the version obtained by adding value at index i.
+    int add(int root, int i, long value) {
+        int newRoot = copy(root);
+        int v = newRoot;
+        int l = 0;
+        int r = n-1;
+        sum[v] += value;
+        while (l < r) {
+            int m = l + (r - l) / 2;
+            if (i <= m) {
+                int c = copy(left[v]);
+                left[v] = c;
+                v = c;
+                r = m;
+            } else {
+                int c = copy(right[v]);
+                right[v] = c;
+                v = c;
+                l = m+1;
+            }
+            sum[v] += value;
         }
+        return newRoot;
     }
 
-    private void push(int v) {
-        if (!hasLazy[v]) return;
-        st[2*v] = lazyFunction(st[2*v], lazy[v]);
-        lazy[2*v] = lazyFunction(lazy[2*v], lazy[v]);
-        st[2*v+1] = lazyFunction(st[2*v+1], lazy[v]);
-        lazy[2*v+1] = lazyFunction(lazy[2*v+1], lazy[v]);
-        hasLazy[2*v] = hasLazy[2*v+1] = true;
-        hasLazy[v] = false;
-        lazy[v] = 0;
+    // Returns the root of the version obtained by setting index i to value.
+    int set(int root, int i, long value) {
+        return add(root, i, value - query(root, i, i));
     }
 
-    void modify(int l, int r, int value) {
-        modify(1, 0, n-1, l, r, value);
+    // Note: input range is closed [l, r]
+    long query(int root, int l, int r) {
+        return query(root, 0, n-1, l, r);
+    }
+
+    private long query(int v, int l, int r, int ql, int qr) {
+        if (ql > qr || v == 0) return 0;
+        if (l == ql && r == qr) return sum[v];
+        int m = l + (r - l) / 2;
+        return query(left[v], l, m, ql, Math.min(qr, m))
+            + query(right[v], m+1, r, Math.max(ql, m+1), qr);
+    }
+
+    // Treating version hi minus version lo as counts per index, returns the
+    // index of the (0-indexed) kth counted item. Counts must be non-negative
+    // and k less than their total.
+    int kth(int lo, int hi, long k) {
+        int l = 0;
+        int r = n-1;
+        while (l < r) {
+            int m = l + (r - l) / 2;
+            long cnt = sum[left[hi]] - sum[left[lo]];
+            if (k < cnt) {
+                lo = left[lo];
+                hi = left[hi];
+                r = m;
+            } else {
+                k -= cnt;
+                lo = right[lo];
+                hi = right[hi];
+                l = m+1;
+            }
+        }
+        return l;
+    }
+}
+
+// Segment tree over the coordinates [lo, hi] (e.g. [0, 10^18]) whose nodes are
+// only created the first time an operation reaches them, so memory grows with
+// the number of touched nodes, O(log(hi - lo)) per operation, rather than with
+// hi - lo. Nodes live in growable pools like PersistentSegmentTree, and -1
+// marks a child that has not been created yet. hi - lo must fit in a long.
+//
+// Every position starts at 0 and a missing node is treated as all zeros, so
+// the Op must satisfy combine(0, 0) == 0 (true for sum, min, and max). Op is
+// the same as in the range-update SegmentTree except that lengths are longs.
+// Default code below is range sum query with range addition.
+class SparseSegmentTree {
+    interface Op {
+        long identity();
+        long combine(long a, long b);
+        // The update that changes nothing. apply(v, noLazy(), len) == v.
+        long noLazy();
+        // Applies update lz to a node with value v covering len positions.
+        long apply(long v, long lz, long len);
+        // The single update equivalent to applying older and then newer.
+        long compose(long newer, long older);
     }
 
-    private void modify(int v, int l, int r, int ql, int qr, int value) {
+    static final Op SUM_ADD = new Op() {
+        public long identity() { return 0; }
+        public long combine(long a, long b) { return a + b; }
+        public long noLazy() { return 0; }
+        public long apply(long v, long lz, long len) { return v + lz * len; }
+        public long compose(long newer, long older) { return newer + older; }
+    };
+
+    static final Op MIN_ADD = new Op() {
+        public long identity() { return Long.MAX_VALUE; }
+        public long combine(long a, long b) { return Math.min(a, b); }
+        public long noLazy() { return 0; }
+        public long apply(long v, long lz, long len) { return v + lz; }
+        public long compose(long newer, long older) { return newer + older; }
+    };
+
+    long lo;
+    long hi;
+    int[] left;
+    int[] right;
+    long[] val;
+    long[] lazy;
+    int id = 0;
+    int root;
+    Op op;
+    long identity;
+    long noLazy;
+
+    SparseSegmentTree(long lo, long hi) {
+        this(lo, hi, SUM_ADD, 1 << 10);
+    }
+
+    // capacity is only a hint, e.g. (number of operations) * 2 * log(hi - lo).
+    SparseSegmentTree(long lo, long hi, Op op, int capacity) {
+        this.lo = lo;
+        this.hi = hi;
+        this.op = op;
+        identity = op.identity();
+        noLazy = op.noLazy();
+        capacity = Math.max(capacity, 1);
+        left = new int[capacity];
+        right = new int[capacity];
+        val = new long[capacity];
+        lazy = new long[capacity];
+        root = create();
+    }
+
+    private int create() {
+        if (id == val.length) {
+            left = Arrays.copyOf(left, id * 2);
+            right = Arrays.copyOf(right, id * 2);
+            val = Arrays.copyOf(val, id * 2);
+            lazy = Arrays.copyOf(lazy, id * 2);
+        }
+        left[id] = right[id] = -1;
+        val[id] = 0;
+        lazy[id] = noLazy;
+        return id++;
+    }
+
+    private int leftChild(int v) {
+        if (left[v] == -1) {
+            int c = create();
+            left[v] = c;
+        }
+        return left[v];
+    }
+
+    private int rightChild(int v) {
+        if (right[v] == -1) {
+            int c = create();
+            right[v] = c;
+        }
+        return right[v];
+    }
+
+    private void applyAt(int v, long lz, long len) {
+        val[v] = op.apply(val[v], lz, len);
+        lazy[v] = op.compose(lz, lazy[v]);
+    }
+
+    private void push(int v, long l, long r) {
+        if (lazy[v] == noLazy) return;
+        long m = l + (r - l) / 2;
+        applyAt(leftChild(v), lazy[v], m - l + 1);
+        applyAt(rightChild(v), lazy[v], r - m);
+        lazy[v] = noLazy;
+    }
+
+    private void pull(int v) {
+        val[v] = op.combine(left[v] == -1 ? 0 : val[left[v]],
+                right[v] == -1 ? 0 : val[right[v]]);
+    }
+
+    // Sets position i to value.
+    void modify(long i, long value) {
+        modify(root, lo, hi, i, value);
+    }
+
+    private void modify(int v, long l, long r, long i, long value) {
+        if (l == r) {
+            val[v] = value;
+            return;
+        }
+        push(v, l, r);
+        long m = l + (r - l) / 2;
+        if (i <= m) modify(leftChild(v), l, m, i, value);
+        else modify(rightChild(v), m+1, r, i, value);
+        pull(v);
+    }
+
+    // Applies value to every position in the closed range [l, r].
+    void modify(long l, long r, long value) {
+        modify(root, lo, hi, l, r, value);
+    }
+
+    private void modify(int v, long l, long r, long ql, long qr, long value) {
         if (ql > qr) return;
         if (l == ql && r == qr) {
-            st[v] = lazyFunction(st[v], value);
-            lazy[v] = lazyFunction(lazy[v], value);
-            hasLazy[v] = true;
+            applyAt(v, value, r - l + 1);
+            return;
+        }
+        push(v, l, r);
+        long m = l + (r - l) / 2;
+        if (ql <= m) modify(leftChild(v), l, m, ql, Math.min(qr, m), value);
+        if (qr > m) modify(rightChild(v), m+1, r, Math.max(ql, m+1), qr, value);
+        pull(v);
+    }
+
+    // Note: input range is closed [l, r]
+    long query(long l, long r) {
+        return query(root, lo, hi, l, r);
+    }
+
+    private long query(int v, long l, long r, long ql, long qr) {
+        if (ql > qr) return identity;
+        if (v == -1) return 0;
+        if (l == ql && r == qr) return val[v];
+        push(v, l, r);
+        long m = l + (r - l) / 2;
+        return op.combine(query(left[v], l, m, ql, Math.min(qr, m)),
+                query(right[v], m+1, r, Math.max(ql, m+1), qr));
+    }
+}
+
+// Segment tree beats (https://codeforces.com/blog/entry/57319) supporting
+// range chmin, range chmax, and range add, with range sum, max, and min
+// queries. Each node keeps its largest and second-largest values (and the
+// count of the largest), and likewise for the smallest, so a chmin that only
+// lowers a node's maximum is applied to the node directly. Amortized
+// O(log^2 n) per operation.
+//
+// Second maximums/minimums that don't exist are NONE_MAX and NONE_MIN.
+class SegmentTreeBeats {
+    static final long NONE_MAX = Long.MIN_VALUE;
+    static final long NONE_MIN = Long.MAX_VALUE;
+
+    int n;
+    long[] sum;
+    long[] max1;
+    long[] max2;
+    int[] maxc;
+    long[] min1;
+    long[] min2;
+    int[] minc;
+    long[] lazy;
+
+    SegmentTreeBeats(long[] arr) {
+        n = arr.length;
+        sum = new long[4*n];
+        max1 = new long[4*n];
+        max2 = new long[4*n];
+        maxc = new int[4*n];
+        min1 = new long[4*n];
+        min2 = new long[4*n];
+        minc = new int[4*n];
+        lazy = new long[4*n];
+        build(arr, 1, 0, n-1);
+    }
+
+    private void build(long[] arr, int v, int l, int r) {
+        if (l == r) {
+            sum[v] = max1[v] = min1[v] = arr[l];
+            max2[v] = NONE_MAX;
+            min2[v] = NONE_MIN;
+            maxc[v] = minc[v] = 1;
         } else {
-            push(v);
             int m = l + (r - l) / 2;
-            modify(2*v, l, m, ql, Math.min(qr, m), value);
-            modify(2*v+1, m+1, r, Math.max(ql, m+1), qr, value);
-            st[v] = combine(st[2*v], st[2*v+1]);
+            build(arr, 2*v, l, m);
+            build(arr, 2*v+1, m+1, r);
+            pull(v);
+        }
+    }
+
+    private void pull(int v) {
+        int a = 2*v;
+        int b = 2*v+1;
+        sum[v] = sum[a] + sum[b];
+        if (max1[a] == max1[b]) {
+            max1[v] = max1[a];
+            max2[v] = Math.max(max2[a], max2[b]);
+            maxc[v] = maxc[a] + maxc[b];
+        } else if (max1[a] > max1[b]) {
+            max1[v] = max1[a];
+            max2[v] = Math.max(max2[a], max1[b]);
+            maxc[v] = maxc[a];
+        } else {
+            max1[v] = max1[b];
+            max2[v] = Math.max(max1[a], max2[b]);
+            maxc[v] = maxc[b];
+        }
+        if (min1[a] == min1[b]) {
+            min1[v] = min1[a];
+            min2[v] = Math.min(min2[a], min2[b]);
+            minc[v] = minc[a] + minc[b];
+        } else if (min1[a] < min1[b]) {
+            min1[v] = min1[a];
+            min2[v] = Math.min(min2[a], min1[b]);
+            minc[v] = minc[a];
+        } else {
+            min1[v] = min1[b];
+            min2[v] = Math.min(min1[a], min2[b]);
+            minc[v] = minc[b];
+        }
+    }
+
+    private void applyAdd(int v, int len, long x) {
+        sum[v] += x * len;
+        max1[v] += x;
+        if (max2[v] != NONE_MAX) max2[v] += x;
+        min1[v] += x;
+        if (min2[v] != NONE_MIN) min2[v] += x;
+        lazy[v] += x;
+    }
+
+    // Lowers the maximum of v to x. Requires max2[v] < x < max1[v].
+    private void applyChmin(int v, long x) {
+        sum[v] -= (max1[v] - x) * maxc[v];
+        if (max1[v] == min1[v]) min1[v] = x;
+        else if (max1[v] == min2[v]) min2[v] = x;
+        max1[v] = x;
+    }
+
+    // Raises the minimum of v to x. Requires min1[v] < x < min2[v].
+    private void applyChmax(int v, long x) {
+        sum[v] += (x - min1[v]) * minc[v];
+        if (min1[v] == max1[v]) max1[v] = x;
+        else if (min1[v] == max2[v]) max2[v] = x;
+        min1[v] = x;
+    }
+
+    private void push(int v, int l, int r) {
+        int m = l + (r - l) / 2;
+        if (lazy[v] != 0) {
+            applyAdd(2*v, m - l + 1, lazy[v]);
+            applyAdd(2*v+1, r - m, lazy[v]);
+            lazy[v] = 0;
+        }
+        for (int c = 2*v; c <= 2*v+1; c++) {
+            if (max1[c] > max1[v]) applyChmin(c, max1[v]);
+            if (min1[c] < min1[v]) applyChmax(c, min1[v]);
+        }
+    }
+
+    // Sets a[i] = min(a[i], x) for i in the closed range [l, r].
+    void chmin(int l, int r, long x) {
+        chmin(1, 0, n-1, l, r, x);
+    }
+
+    private void chmin(int v, int l, int r, int ql, int qr, long x) {
+        if (qr < l || r < ql || max1[v] <= x) return;
+        if (ql <= l && r <= qr && max2[v] < x) {
+            applyChmin(v, x);
+            return;
+        }
+        push(v, l, r);
+        int m = l + (r - l) / 2;
+        chmin(2*v, l, m, ql, qr, x);
+        chmin(2*v+1, m+1, r, ql, qr, x);
+        pull(v);
+    }
+
+    // Sets a[i] = max(a[i], x) for i in the closed range [l, r].
+    void chmax(int l, int r, long x) {
+        chmax(1, 0, n-1, l, r, x);
+    }
+
+    private void chmax(int v, int l, int r, int ql, int qr, long x) {
+        if (qr < l || r < ql || min1[v] >= x) return;
+        if (ql <= l && r <= qr && min2[v] > x) {
+            applyChmax(v, x);
+            return;
+        }
+        push(v, l, r);
+        int m = l + (r - l) / 2;
+        chmax(2*v, l, m, ql, qr, x);
+        chmax(2*v+1, m+1, r, ql, qr, x);
+        pull(v);
+    }
+
+    // Adds x to a[i] for i in the closed range [l, r].
+    void add(int l, int r, long x) {
+        add(1, 0, n-1, l, r, x);
+    }
+
+    private void add(int v, int l, int r, int ql, int qr, long x) {
+        if (qr < l || r < ql) return;
+        if (ql <= l && r <= qr) {
+            applyAdd(v, r - l + 1, x);
+            return;
         }
+        push(v, l, r);
+        int m = l + (r - l) / 2;
+        add(2*v, l, m, ql, qr, x);
+        add(2*v+1, m+1, r, ql, qr, x);
+        pull(v);
     }
 
     // Note: input range is closed [l, r]
-    int query(int l, int r) {
-        return query(1, 0, n-1, l, r);
+    long querySum(int l, int r) {
+        return querySum(1, 0, n-1, l, r);
     }
 
-    private int query(int v, int l, int r, int ql, int qr) {
-        if (ql > qr) return identity;
-        if (l == ql && r == qr) return st[v];
-        push(v);
+    private long querySum(int v, int l, int r, int ql, int qr) {
+        if (qr < l || r < ql) return 0;
+        if (ql <= l && r <= qr) return sum[v];
+        push(v, l, r);
         int m = l + (r - l) / 2;
-        int resl = query(2*v, l, m, ql, Math.min(qr, m));
-        int resr = query(2*v+1, m+1, r, Math.max(ql, m+1), qr);
-        return combine(resl, resr);
+        return querySum(2*v, l, m, ql, qr) + querySum(2*v+1, m+1, r, ql, qr);
+    }
+
+    // Note: input range is closed [l, r]
+    long queryMax(int l, int r) {
+        return queryMax(1, 0, n-1, l, r);
+    }
+
+    private long queryMax(int v, int l, int r, int ql, int qr) {
+        if (qr < l || r < ql) return Long.MIN_VALUE;
+        if (ql <= l && r <= qr) return max1[v];
+        push(v, l, r);
+        int m = l + (r - l) / 2;
+        return Math.max(queryMax(2*v, l, m, ql, qr), queryMax(2*v+1, m+1, r, ql, qr));
+    }
+
+    // Note: input range is closed [l, r]
+    long queryMin(int l, int r) {
+        return queryMin(1, 0, n-1, l, r);
+    }
+
+    private long queryMin(int v, int l, int r, int ql, int qr) {
+        if (qr < l || r < ql) return Long.MAX_VALUE;
+        if (ql <= l && r <= qr) return min1[v];
+        push(v, l, r);
+        int m = l + (r - l) / 2;
+        return Math.min(queryMin(2*v, l, m, ql, qr), queryMin(2*v+1, m+1, r, ql, qr));
+    }
+}
+
+// Wide segment tree for prefix sums (see
+// https://en.algorithmica.org/hpc/data-structures/segment-trees/#wide-segment-trees).
+// Each node has 16 children and stores, for each child, the sum of the
+// children before it, so a prefix sum reads one value per level: about
+// log16(n) dependent memory accesses instead of log2(n). An update rewrites
+// one 16-long node (two cache lines) per level using a branchless loop that
+// the JIT can vectorize. Only works for sums (or other invertible combines),
+// since query(l, r) is prefix(r) - prefix(l); see WideMinSegmentTree for min.
+class WideSegmentTree {
+    int n;
+    int levels;
+    int[] offset;
+    long[] t;
+
+    WideSegmentTree(long[] arr) {
+        n = arr.length;
+        levels = 1;
+        while ((n >> (4*levels)) > 0) levels++;
+        offset = new int[levels + 1];
+        for (int k = 0; k < levels; k++) {
+            offset[k+1] = offset[k] + ((n >> (4*(k+1))) + 1) * 16;
+        }
+        t = new long[offset[levels]];
+        long[] curr = arr;
+        for (int k = 0; k < levels; k++) {
+            int nodes = (offset[k+1] - offset[k]) / 16;
+            long[] next = new long[nodes];
+            for (int node = 0; node < nodes; node++) {
+                long run = 0;
+                for (int j = 0; j < 16; j++) {
+                    int idx = node*16 + j;
+                    t[offset[k] + idx] = run;
+                    if (idx < curr.length) run += curr[idx];
+                }
+                next[node] = run;
+            }
+            curr = next;
+        }
+    }
+
+    // Returns the sum of the half-open range [0, i), for 0 <= i <= n.
+    long prefix(int i) {
+        long sum = 0;
+        for (int k = 0; k < levels; k++) sum += t[offset[k] + (i >> (4*k))];
+        return sum;
+    }
+
+    // Note: input range is half-open [l, r)
+    long query(int l, int r) {
+        return prefix(r) - prefix(l);
+    }
+
+    void add(int i, long value) {
+        for (int k = 0; k < levels; k++) {
+            int base = offset[k] + ((i >> (4*(k+1))) << 4);
+            int j = (i >> (4*k)) & 15;
+            // Adds value to the entries after j: (j - c) >> 31 is -1 iff c > j.
+            for (int c = 0; c < 16; c++) t[base + c] += value & ((j - c) >> 31);
+        }
+    }
+
+    void modify(int i, long value) {
+        add(i, value - query(i, i+1));
+    }
+}
+
+// Wide segment tree for range min, the non-invertible counterpart to the
+// one above. Level 0 holds the values and each entry of level k+1 is the
+// min of a block of 16 entries of level k, with every level padded with
+// Long.MAX_VALUE to whole blocks. A query scans at most two partial blocks
+// per level, each within one or two cache lines, and an update recomputes
+// one block of 16 longs per level.
+class WideMinSegmentTree {
+    int n;
+    int levels;
+    int[] offset;
+    long[] t;
+
+    WideMinSegmentTree(long[] arr) {
+        n = arr.length;
+        levels = 1;
+        for (int cnt = n; cnt > 16; cnt = (cnt + 15) >> 4) levels++;
+        offset = new int[levels + 1];
+        int cnt = n;
+        for (int k = 0; k < levels; k++) {
+            offset[k+1] = offset[k] + ((cnt + 15) >> 4) * 16;
+            cnt = (cnt + 15) >> 4;
+        }
+        t = new long[offset[levels]];
+        Arrays.fill(t, Long.MAX_VALUE);
+        System.arraycopy(arr, 0, t, 0, n);
+        for (int k = 0; k + 1 < levels; k++) {
+            for (int i = offset[k]; i < offset[k+1]; i += 16) {
+                t[offset[k+1] + ((i - offset[k]) >> 4)] = blockMin(i);
+            }
+        }
+    }
+
+    private long blockMin(int start) {
+        long res = Long.MAX_VALUE;
+        for (int c = 0; c < 16; c++) res = Math.min(res, t[start + c]);
+        return res;
+    }
+
+    // Returns the min of the block starting at start over children [lo, hi).
+    private long blockMin(int start, int lo, int hi) {
+        long res = Long.MAX_VALUE;
+        for (int c = lo; c < hi; c++) res = Math.min(res, t[start + c]);
+        return res;
+    }
+
+    // Note: input range is half-open [l, r)
+    long query(int l, int r) {
+        long res = Long.MAX_VALUE;
+        for (int k = 0; k < levels && l < r; k++) {
+            int base = offset[k];
+            if ((l >> 4) == (r >> 4)) {
+                return Math.min(res, blockMin(base + (l & ~15), l & 15, r & 15));
+            }
+            res = Math.min(res, blockMin(base + (l & ~15), l & 15, 16));
+            if ((r & 15) != 0) res = Math.min(res, blockMin(base + (r & ~15), 0, r & 15));
+            l = (l >> 4) + 1;
+            r >>= 4;
+        }
+        return res;
+    }
+
+    void modify(int i, long value) {
+        t[i] = value;
+        for (int k = 0; k + 1 < levels; k++) {
+            int block = i >> 4;
+            t[offset[k+1] + block] = blockMin(offset[k] + block*16);
+            i = block;
+        }
     }
 }
 
 // This class uses the convension of [n] for rows and [m] for columns.
 // The variables [x] and [y] denote row- and column-related logic, respectively
 // (unrelated to cartesian coordinate convensions).
+//
+// Compact 2D segment tree: the 1D compact segment tree applied to rows, where
+// each row node is itself a compact segment tree over columns. Everything is
+// stored in one flat array of (2n) * (2m) values, with node (x, y) at
+// st[x*2m + y], and all operations are iterative. combine should be
+// commutative (sum, min, max, gcd, ...).
 class SegmentTree2D {
     int n;
     int m;
-    int[][] st;
+    int[] st;
 
     // Modify identity and combine together.
     int identity = 0;
@@ -217,76 +1424,58 @@ class SegmentTree2D {
     SegmentTree2D(int[][] mat) {
         n = mat.length;
         m = mat[0].length;
-        st = new int[4*n][4*m];
-        buildRows(mat, 1, 0, n-1);
-    }
-
-    private void buildCols(int[][] mat, int i, int lx, int rx, int j, int ly, int ry) {
-        if (ly == ry) {
-            if (lx == rx) st[i][j] = mat[lx][ly];
-            else st[i][j] = combine(st[2*i][j], st[2*i+1][j]);
-        } else {
-            int my = ly + (ry - ly) / 2;
-            buildCols(mat, i, lx, rx, 2*j, ly, my);
-            buildCols(mat, i, lx, rx, 2*j+1, my+1, ry);
-            st[i][j] = combine(st[i][2*j], st[i][2*j+1]);
+        st = new int[4*n*m];
+        int w = 2*m;
+        for (int i = 0; i < n; i++) {
+            int row = (n + i) * w;
+            for (int j = 0; j < m; j++) st[row + m + j] = mat[i][j];
+            for (int y = m - 1; y > 0; y--) {
+                st[row + y] = combine(st[row + y*2], st[row + y*2+1]);
+            }
         }
-    }
-
-    private void buildRows(int[][] mat, int i, int lx, int rx) {
-        if (lx != rx) {
-            int mx = lx + (rx - lx) / 2;
-            buildRows(mat, 2*i, lx, mx);
-            buildRows(mat, 2*i+1, mx+1, rx);
+        for (int x = n - 1; x > 0; x--) {
+            int row = x * w;
+            int lo = x*2 * w;
+            int hi = (x*2+1) * w;
+            for (int y = 1; y < w; y++) st[row + y] = combine(st[lo + y], st[hi + y]);
         }
-        buildCols(mat, i, lx, rx, 1, 0, m-1);
     }
 
-    private void modifyCols(int r, int c, int val, int i, int lx, int rx, int j, int ly, int ry) {
-        if (ly == ry) {
-            if (lx == rx) st[i][j] = val;
-            else st[i][j] = combine(st[2*i][j], st[2*i+1][j]);
-        } else {
-            int my = ly + (ry - ly) / 2;
-            if (c <= my) modifyCols(r, c, val, i, lx, rx, 2*j, ly, my);
-            else modifyCols(r, c, val, i, lx, rx, 2*j+1, my+1, ry);
-            st[i][j] = combine(st[i][2*j], st[i][2*j+1]);
+    void modify(int r, int c, int val) {
+        int w = 2*m;
+        int x = n + r;
+        int row = x * w;
+        int y = m + c;
+        st[row + y] = val;
+        for (y /= 2; y > 0; y /= 2) st[row + y] = combine(st[row + y*2], st[row + y*2+1]);
+        for (x /= 2; x > 0; x /= 2) {
+            row = x * w;
+            int lo = x*2 * w;
+            int hi = (x*2+1) * w;
+            for (y = m + c; y > 0; y /= 2) st[row + y] = combine(st[lo + y], st[hi + y]);
         }
     }
 
-    private void modifyRows(int r, int c, int val, int i, int lx, int rx) {
-        if (lx != rx) {
-            int mx = lx + (rx - lx) / 2;
-            if (r <= mx) modifyRows(r, c, val, 2*i, lx, mx);
-            else modifyRows(r, c, val, 2*i+1, mx+1, rx);
+    private int queryRow(int x, int l, int r) {
+        int row = x * 2*m;
+        int resl = identity;
+        int resr = identity;
+        for (l += m, r += m; l < r; l /= 2, r /= 2) {
+            if ((l & 1) > 0) resl = combine(resl, st[row + l++]);
+            if ((r & 1) > 0) resr = combine(st[row + --r], resr);
         }
-        modifyCols(r, c, val, i, lx, rx, 1, 0, m-1);
-    }
-
-    void modify(int r, int c, int val) {
-        modifyRows(r, c, val, 1, 0, n-1);
-    }
-
-    private int queryCols(int qly, int qry, int i, int j, int ly, int ry) {
-        if (qly > qry) return identity;
-        if (ly == qly && ry == qry) return st[i][j];
-        int my = ly + (ry - ly) / 2;
-        int resl = queryCols(qly, Math.min(qry, my), i, 2*j, ly, my);
-        int resr = queryCols(Math.max(qly, my+1), qry, i, 2*j+1, my+1, ry);
-        return combine(resl, resr);
-    }
-
-    private int queryRows(int qlx, int qrx, int qly, int qry, int i, int lx, int rx) {
-        if (qlx > qrx) return identity;
-        if (lx == qlx && rx == qrx) return queryCols(qly, qry, i, 1, 0, m-1);
-        int mx = lx + (rx - lx) / 2;
-        int resl = queryRows(qlx, Math.min(qrx, mx), qly, qry, 2*i, lx, mx);
-        int resr = queryRows(Math.max(qlx, mx+1), qrx, qly, qry, 2*i+1, mx+1, rx);
         return combine(resl, resr);
     }
 
     // Note: input range is closed
     int query(int lx, int rx, int ly, int ry) {
-        return queryRows(lx, rx, ly, ry, 1, 0, n-1);
+        int resl = identity;
+        int resr = identity;
+        ry++;
+        for (lx += n, rx += n + 1; lx < rx; lx /= 2, rx /= 2) {
+            if ((lx & 1) > 0) resl = combine(resl, queryRow(lx++, ly, ry));
+            if ((rx & 1) > 0) resr = combine(queryRow(--rx, ly, ry), resr);
+        }
+        return combine(resl, resr);
     }
 }
\ No newline at end of file